@@ -0,0 +1,48 @@
+package com.venmo.cursor.benchmark;
+
+import com.venmo.cursor.CursorUtils;
+import com.venmo.cursor.IterableCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/** {@link CursorUtils#consumeToArrayList(IterableCursor)}, which closes its cursor. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ConsumeBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    @Param({"4", "32"})
+    public int columns;
+
+    private IterableCursor<long[]> mCursor;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        mCursor = Cursors.rowCursor(rows, columns);
+    }
+
+    @Benchmark
+    public ArrayList<long[]> consumeToArrayList() {
+        return CursorUtils.consumeToArrayList(mCursor);
+    }
+}
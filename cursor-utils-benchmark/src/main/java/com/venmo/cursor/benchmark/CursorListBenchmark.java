@@ -0,0 +1,62 @@
+package com.venmo.cursor.benchmark;
+
+import com.venmo.cursor.CursorList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Navigating a {@link CursorList} as a {@link android.database.Cursor}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CursorListBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private CursorList<Long> mCursor;
+    private int[] mRandomPositions;
+
+    @Setup
+    public void setUp() {
+        mCursor = new CursorList<Long>(rows);
+        Random random = new Random(0);
+        mRandomPositions = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            mCursor.add((long) i);
+            mRandomPositions[i] = random.nextInt(rows);
+        }
+    }
+
+    @Benchmark
+    public void nextDocument(Blackhole blackhole) {
+        mCursor.moveToFirst();
+        while (!mCursor.isAfterLast()) {
+            blackhole.consume(mCursor.nextDocument());
+        }
+    }
+
+    @Benchmark
+    public void moveToRandomPosition(Blackhole blackhole) {
+        for (int position : mRandomPositions) {
+            mCursor.moveToPosition(position);
+            blackhole.consume(mCursor.peek());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.venmo.cursor.benchmark;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import com.venmo.cursor.IterableCursor;
+import com.venmo.cursor.IterableCursorWrapper;
+
+/**
+ * In-memory cursors for the benchmarks, so that they measure this library rather than SQLite.
+ */
+final class Cursors {
+
+    private Cursors() {
+        throw new UnsupportedOperationException("Non-instantiable class");
+    }
+
+    static String columnName(int column) {
+        return "column_" + column;
+    }
+
+    /** A cursor of {@code rows} x {@code columns} longs, where each value is its position. */
+    static MatrixCursor matrixCursor(int rows, int columns) {
+        String[] columnNames = new String[columns];
+        for (int column = 0; column < columns; column++) {
+            columnNames[column] = columnName(column);
+        }
+        MatrixCursor cursor = new MatrixCursor(columnNames, rows);
+        Object[] values = new Object[columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                values[column] = (long) row;
+            }
+            cursor.addRow(values);
+        }
+        return cursor;
+    }
+
+    static IterableCursor<long[]> rowCursor(int rows, int columns) {
+        return new RowCursor(matrixCursor(rows, columns));
+    }
+
+    /** Reads every column by name, like a typical hand-written {@link IterableCursor#peek()}. */
+    static class RowCursor extends IterableCursorWrapper<long[]> {
+
+        private final String[] mColumnNames;
+
+        RowCursor(Cursor cursor) {
+            super(cursor);
+            mColumnNames = cursor.getColumnNames();
+        }
+
+        @Override
+        public long[] peek() {
+            return peekInto(null);
+        }
+
+        @Override
+        public long[] peekInto(long[] reuse) {
+            long[] row = (reuse != null) ? reuse : new long[mColumnNames.length];
+            for (int i = 0; i < mColumnNames.length; i++) {
+                row[i] = getLong(mColumnNames[i], -1);
+            }
+            return row;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.venmo.cursor.benchmark;
+
+import com.venmo.cursor.IterableCursor;
+import com.venmo.cursor.IterableMergeCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Moving around an {@link IterableMergeCursor} of {@code fanOut} equally sized children. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class MergeCursorBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    @Param({"2", "50"})
+    public int fanOut;
+
+    private IterableMergeCursor<long[]> mCursor;
+    private int[] mRandomPositions;
+
+    @Setup
+    public void setUp() {
+        @SuppressWarnings("unchecked")
+        IterableCursor<long[]>[] children = new IterableCursor[fanOut];
+        for (int i = 0; i < fanOut; i++) {
+            children[i] = Cursors.rowCursor(rows / fanOut, 1);
+        }
+        mCursor = new IterableMergeCursor<long[]>(children);
+
+        Random random = new Random(0);
+        mRandomPositions = new int[mCursor.getCount()];
+        for (int i = 0; i < mRandomPositions.length; i++) {
+            mRandomPositions[i] = random.nextInt(mRandomPositions.length);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mCursor.close();
+    }
+
+    @Benchmark
+    public void moveToNext(Blackhole blackhole) {
+        mCursor.moveToPosition(-1);
+        while (mCursor.moveToNext()) {
+            blackhole.consume(mCursor.getLong(0));
+        }
+    }
+
+    @Benchmark
+    public void moveToRandomPosition(Blackhole blackhole) {
+        for (int position : mRandomPositions) {
+            mCursor.moveToPosition(position);
+            blackhole.consume(mCursor.getLong(0));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.venmo.cursor.benchmark;
+
+import com.venmo.cursor.CursorUtils;
+import com.venmo.cursor.IterableCursor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link com.venmo.cursor.IterableCursorWrapper}'s named getters, through a {@link
+ * IterableCursor#peek()} which reads every column by name.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class NamedGetterBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"4", "32"})
+    public int columns;
+
+    private IterableCursor<long[]> mCursor;
+
+    @Setup
+    public void setUp() {
+        mCursor = Cursors.rowCursor(rows, columns);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mCursor.close();
+    }
+
+    @Benchmark
+    public void peekEveryRow(Blackhole blackhole) {
+        for (int position = 0; position < rows; position++) {
+            mCursor.moveToPosition(position);
+            blackhole.consume(mCursor.peek());
+        }
+    }
+
+    @Benchmark
+    public void reuseEveryRow(Blackhole blackhole) {
+        mCursor.moveToFirst();
+        for (long[] row : CursorUtils.reusingRows(mCursor)) {
+            blackhole.consume(row);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.venmo.cursor.compiler;
+
+import java.util.Locale;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The types that a {@code @Column} can be read as, and the {@link android.database.Cursor} code
+ * which reads them.
+ */
+enum ColumnType {
+    INT("int", "getInt(%s)", "0", false),
+    LONG("long", "getLong(%s)", "0L", false),
+    FLOAT("float", "getFloat(%s)", "0f", false),
+    DOUBLE("double", "getDouble(%s)", "0d", false),
+    SHORT("short", "getShort(%s)", "(short) 0", false),
+    BOOLEAN("boolean", "getInt(%s) == 1", "false", false),
+    BOXED_INT("java.lang.Integer", "getInt(%s)", "null", true),
+    BOXED_LONG("java.lang.Long", "getLong(%s)", "null", true),
+    BOXED_FLOAT("java.lang.Float", "getFloat(%s)", "null", true),
+    BOXED_DOUBLE("java.lang.Double", "getDouble(%s)", "null", true),
+    BOXED_SHORT("java.lang.Short", "getShort(%s)", "null", true),
+    BOXED_BOOLEAN("java.lang.Boolean", "getInt(%s) == 1", "null", true),
+    STRING("java.lang.String", "getString(%s)", "null", false),
+    BLOB("byte[]", "getBlob(%s)", "null", false);
+
+    private final String mTypeName;
+    private final String mReadFormat;
+    private final String mDefaultValue;
+    private final boolean mNullable;
+
+    ColumnType(String typeName, String readFormat, String defaultValue, boolean nullable) {
+        mTypeName = typeName;
+        mReadFormat = readFormat;
+        mDefaultValue = defaultValue;
+        mNullable = nullable;
+    }
+
+    /**
+     * Java source that reads this type from the column at {@code indexField}, falling back to the
+     * default value if the column is missing (or {@code NULL}, for boxed types).
+     */
+    String readExpression(String indexField) {
+        String missing = indexField + " == -1";
+        if (mNullable) {
+            missing += " || isNull(" + indexField + ")";
+        }
+        return missing + " ? " + mDefaultValue + " : " + String.format(mReadFormat, indexField);
+    }
+
+    /** @return the matching type, or {@code null} if {@code type} cannot be read from a column */
+    static ColumnType forType(TypeMirror type) {
+        String name = typeName(type);
+        for (ColumnType columnType : values()) {
+            if (columnType.mTypeName.equals(name)) {
+                return columnType;
+            }
+        }
+        return null;
+    }
+
+    private static String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase(Locale.US);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            return element.getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+}
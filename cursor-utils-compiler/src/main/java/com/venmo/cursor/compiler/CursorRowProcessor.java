@@ -0,0 +1,322 @@
+package com.venmo.cursor.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates an {@code IterableCursorWrapper} subclass for every class annotated with {@code
+ * com.venmo.cursor.CursorRow}. The annotations are matched by name so that this processor does not
+ * depend on the Android library which declares them.
+ */
+@SupportedAnnotationTypes(CursorRowProcessor.CURSOR_ROW)
+public final class CursorRowProcessor extends AbstractProcessor {
+
+    static final String CURSOR_ROW = "com.venmo.cursor.CursorRow";
+    static final String COLUMN = "com.venmo.cursor.Column";
+    static final String SUFFIX = "$$IterableCursor";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@CursorRow is only supported on classes");
+                    continue;
+                }
+                TypeElement row = (TypeElement) element;
+                if (isValidRow(row)) {
+                    generate(row);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidRow(TypeElement row) {
+        Set<Modifier> modifiers = row.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            error(row, "@CursorRow classes must be neither abstract nor private");
+            return false;
+        }
+        if (row.getEnclosingElement().getKind() != ElementKind.PACKAGE
+                && !modifiers.contains(Modifier.STATIC)) {
+            error(row, "Nested @CursorRow classes must be static");
+            return false;
+        }
+        if (!row.getTypeParameters().isEmpty()) {
+            error(row, "@CursorRow classes must not have type parameters");
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement row) {
+        ExecutableElement constructor = findConstructor(row);
+        if (constructor == null) {
+            return;
+        }
+
+        boolean valid = true;
+        List<VariableElement> parameters = new ArrayList<VariableElement>();
+        for (VariableElement parameter : constructor.getParameters()) {
+            valid &= isValidColumn(parameter);
+            parameters.add(parameter);
+        }
+        List<VariableElement> fields = new ArrayList<VariableElement>();
+        for (VariableElement field : ElementFilter.fieldsIn(row.getEnclosedElements())) {
+            if (getColumnName(field) == null) {
+                continue;
+            }
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                    || modifiers.contains(Modifier.FINAL)) {
+                error(field, "@Column fields must not be private, static or final");
+                valid = false;
+                continue;
+            }
+            valid &= isValidColumn(field);
+            fields.add(field);
+        }
+        if (!valid) {
+            return;
+        }
+
+        try {
+            writeSource(row, parameters, fields);
+        } catch (IOException e) {
+            error(row, "Unable to write cursor for " + row + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Find the constructor whose parameters are all annotated with {@code @Column}, or else the
+     * no-arg constructor.
+     */
+    private ExecutableElement findConstructor(TypeElement row) {
+        ExecutableElement columnConstructor = null;
+        ExecutableElement noArgConstructor = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(
+                row.getEnclosedElements())) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.isEmpty()) {
+                noArgConstructor = constructor;
+                continue;
+            }
+            int annotated = 0;
+            for (VariableElement parameter : parameters) {
+                if (getColumnName(parameter) != null) {
+                    annotated++;
+                }
+            }
+            if (annotated == 0) {
+                continue;
+            }
+            if (annotated != parameters.size()) {
+                error(constructor, "Every parameter of a @Column constructor must be annotated");
+                return null;
+            }
+            if (columnConstructor != null) {
+                error(constructor, "Only one constructor may have @Column parameters");
+                return null;
+            }
+            columnConstructor = constructor;
+        }
+
+        ExecutableElement constructor =
+                (columnConstructor != null) ? columnConstructor : noArgConstructor;
+        if (constructor == null || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            error(row, "@CursorRow classes need a non-private no-arg constructor or a "
+                    + "constructor whose parameters are all annotated with @Column");
+            return null;
+        }
+        return constructor;
+    }
+
+    private boolean isValidColumn(VariableElement element) {
+        if (ColumnType.forType(element.asType()) == null) {
+            error(element, "Unsupported @Column type " + element.asType());
+            return false;
+        }
+        return true;
+    }
+
+    private void writeSource(TypeElement row, List<VariableElement> parameters,
+            List<VariableElement> fields) throws IOException {
+        String packageName = getPackage(row).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(row).toString();
+        String className = binaryName.substring(packageName.isEmpty() ? 0
+                : packageName.length() + 1) + SUFFIX;
+        String rowType = row.getQualifiedName().toString();
+
+        // column name -> index field, shared by every element reading the same column
+        Map<String, String> indexFields = new LinkedHashMap<String, String>();
+        List<VariableElement> columns = new ArrayList<VariableElement>(parameters);
+        columns.addAll(fields);
+        for (VariableElement column : columns) {
+            String columnName = getColumnName(column);
+            if (!indexFields.containsKey(columnName)) {
+                indexFields.put(columnName, indexFieldName(columnName, indexFields));
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated code from cursor-utils. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import android.database.Cursor;\n\n");
+        source.append("import com.venmo.cursor.IterableCursorWrapper;\n\n");
+        source.append("public class ").append(className)
+                .append(" extends IterableCursorWrapper<").append(rowType).append("> {\n\n");
+
+        for (String indexField : indexFields.values()) {
+            source.append("    private int ").append(indexField).append(";\n");
+        }
+        if (!indexFields.isEmpty()) {
+            source.append("\n");
+        }
+
+        source.append("    public ").append(className).append("(Cursor cursor) {\n");
+        source.append("        super(cursor);\n");
+        source.append("        resolveColumnIndices();\n");
+        source.append("    }\n\n");
+
+        source.append("    @Deprecated\n");
+        source.append("    @Override\n");
+        source.append("    public boolean requery() {\n");
+        source.append("        boolean result = super.requery();\n");
+        source.append("        resolveColumnIndices();\n");
+        source.append("        return result;\n");
+        source.append("    }\n\n");
+
+        source.append("    private void resolveColumnIndices() {\n");
+        for (Map.Entry<String, String> entry : indexFields.entrySet()) {
+            source.append("        ").append(entry.getValue()).append(" = getColumnIndex(")
+                    .append(processingEnv.getElementUtils().getConstantExpression(entry.getKey()))
+                    .append(");\n");
+        }
+        source.append("    }\n\n");
+
+        if (parameters.isEmpty()) {
+            // rows built only from fields can be refilled, so peek() defers to peekInto()
+            source.append("    @Override\n");
+            source.append("    public ").append(rowType).append(" peek() {\n");
+            source.append("        return peekInto(null);\n");
+            source.append("    }\n\n");
+
+            source.append("    @Override\n");
+            source.append("    public ").append(rowType).append(" peekInto(").append(rowType)
+                    .append(" reuse) {\n");
+            source.append("        ").append(rowType)
+                    .append(" row = (reuse != null) ? reuse : new ").append(rowType)
+                    .append("();\n");
+        } else {
+            source.append("    @Override\n");
+            source.append("    public ").append(rowType).append(" peek() {\n");
+            source.append("        ").append(rowType).append(" row = new ").append(rowType)
+                    .append("(");
+            for (int i = 0; i < parameters.size(); i++) {
+                source.append(i == 0 ? "\n" : ",\n").append("                ")
+                        .append(readExpression(parameters.get(i), indexFields));
+            }
+            source.append(");\n");
+        }
+        for (VariableElement field : fields) {
+            source.append("        row.").append(field.getSimpleName()).append(" = ")
+                    .append(readExpression(field, indexFields)).append(";\n");
+        }
+        source.append("        return row;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, row);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String readExpression(VariableElement element,
+            Map<String, String> indexFields) {
+        String indexField = indexFields.get(getColumnName(element));
+        return ColumnType.forType(element.asType()).readExpression(indexField);
+    }
+
+    /** {@code some_column} becomes {@code mSomeColumnIndex} */
+    private static String indexFieldName(String columnName, Map<String, String> indexFields) {
+        StringBuilder name = new StringBuilder("m");
+        boolean upperCase = true;
+        for (char c : columnName.toCharArray()) {
+            if (Character.isJavaIdentifierPart(c) && c != '_' && c != '$') {
+                name.append(upperCase ? Character.toUpperCase(c) : c);
+                upperCase = false;
+            } else {
+                upperCase = true;
+            }
+        }
+        name.append("Index");
+        if (indexFields.containsValue(name.toString())) {
+            // two columns which only differ in punctuation
+            name.append(indexFields.size());
+        }
+        return name.toString();
+    }
+
+    /** @return the value of the {@code @Column} annotation, or null if there is none */
+    private static String getColumnName(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!type.getQualifiedName().contentEquals(COLUMN)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    return (String) entry.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PackageElement getPackage(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,219 @@
+package com.venmo.cursor.compiler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CursorRowProcessorTest {
+
+    private static final String CURSOR_ROW = "package com.venmo.cursor;\n"
+            + "public @interface CursorRow {}";
+    private static final String COLUMN = "package com.venmo.cursor;\n"
+            + "public @interface Column { String value(); }";
+    /** Just enough of the Android library for the generated code to compile against. */
+    private static final String CURSOR = "package android.database;\n"
+            + "public interface Cursor {}";
+    private static final String ITERABLE_CURSOR_WRAPPER = "package com.venmo.cursor;\n"
+            + "public abstract class IterableCursorWrapper<T> {\n"
+            + "  public IterableCursorWrapper(android.database.Cursor cursor) {}\n"
+            + "  public abstract T peek();\n"
+            + "  public T peekInto(T reuse) { return peek(); }\n"
+            + "  public boolean requery() { return true; }\n"
+            + "  public int getColumnIndex(String columnName) { return -1; }\n"
+            + "  public boolean isNull(int i) { return true; }\n"
+            + "  public int getInt(int i) { return 0; }\n"
+            + "  public long getLong(int i) { return 0; }\n"
+            + "  public float getFloat(int i) { return 0; }\n"
+            + "  public double getDouble(int i) { return 0; }\n"
+            + "  public short getShort(int i) { return 0; }\n"
+            + "  public String getString(int i) { return null; }\n"
+            + "  public byte[] getBlob(int i) { return null; }\n"
+            + "}";
+
+    private File mOutput;
+    private DiagnosticCollector<JavaFileObject> mDiagnostics;
+
+    @Before
+    public void setUp() throws IOException {
+        mOutput = File.createTempFile("cursor-row", "");
+        assertTrue(mOutput.delete());
+        assertTrue(mOutput.mkdir());
+        mDiagnostics = new DiagnosticCollector<JavaFileObject>();
+    }
+
+    @Test
+    public void constructorParameters() throws IOException {
+        assertCompiles(process("test.User", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class User {\n"
+                + "  public User(@Column(\"name\") String name, @Column(\"age\") int age,\n"
+                + "      @Column(\"is_friend\") boolean friend,\n"
+                + "      @Column(\"photo\") byte[] photo) {}\n"
+                + "}"));
+
+        String source = generated("test/User$$IterableCursor.java");
+        assertContains(source, "public class User$$IterableCursor "
+                + "extends IterableCursorWrapper<test.User>");
+        assertContains(source, "mNameIndex = getColumnIndex(\"name\");");
+        assertContains(source, "mIsFriendIndex = getColumnIndex(\"is_friend\");");
+        assertContains(source, "test.User row = new test.User(\n"
+                + "                mNameIndex == -1 ? null : getString(mNameIndex),\n"
+                + "                mAgeIndex == -1 ? 0 : getInt(mAgeIndex),\n"
+                + "                mIsFriendIndex == -1 ? false : getInt(mIsFriendIndex) == 1,\n"
+                + "                mPhotoIndex == -1 ? null : getBlob(mPhotoIndex));");
+        assertFalse(source.contains("peekInto"));
+    }
+
+    @Test
+    public void fields() throws IOException {
+        assertCompiles(process("test.Amount", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class Amount {\n"
+                + "  @Column(\"value\") double value;\n"
+                + "  @Column(\"value\") Double boxedValue;\n"
+                + "  @Column(\"cents\") public Long cents;\n"
+                + "  String ignored;\n"
+                + "}"));
+
+        String source = generated("test/Amount$$IterableCursor.java");
+        assertContains(source, "return peekInto(null);");
+        assertContains(source, "public test.Amount peekInto(test.Amount reuse) {\n"
+                + "        test.Amount row = (reuse != null) ? reuse : new test.Amount();");
+        assertContains(source, "row.value = mValueIndex == -1 ? 0d : getDouble(mValueIndex);");
+        assertContains(source, "row.boxedValue = mValueIndex == -1 || isNull(mValueIndex) ? null "
+                + ": getDouble(mValueIndex);");
+        assertContains(source, "row.cents = mCentsIndex == -1 || isNull(mCentsIndex) ? null "
+                + ": getLong(mCentsIndex);");
+        assertFalse(source.contains("ignored"));
+        // both fields share the same column index
+        assertEquals(1, source.split("getColumnIndex\\(\"value\"\\)").length - 1);
+    }
+
+    @Test
+    public void nestedClass() throws IOException {
+        assertCompiles(process("test.Outer", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "public class Outer {\n"
+                + "  @CursorRow static class Inner { @Column(\"id\") long id; }\n"
+                + "}"));
+
+        String source = generated("test/Outer$Inner$$IterableCursor.java");
+        assertContains(source, "extends IterableCursorWrapper<test.Outer.Inner>");
+    }
+
+    @Test
+    public void unsupportedType() {
+        assertFalse(process("test.Bad", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class Bad { @Column(\"date\") java.util.Date date; }"));
+        assertError("Unsupported @Column type java.util.Date");
+    }
+
+    @Test
+    public void privateField() {
+        assertFalse(process("test.Bad", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class Bad { @Column(\"id\") private long id; }"));
+        assertError("@Column fields must not be private, static or final");
+    }
+
+    @Test
+    public void partiallyAnnotatedConstructor() {
+        assertFalse(process("test.Bad", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class Bad { Bad(@Column(\"id\") long id, String name) {} }"));
+        assertError("Every parameter of a @Column constructor must be annotated");
+    }
+
+    @Test
+    public void missingConstructor() {
+        assertFalse(process("test.Bad", "package test;\n"
+                + "import com.venmo.cursor.*;\n"
+                + "@CursorRow public class Bad { Bad(long id) {} }"));
+        assertError("@CursorRow classes need a non-private no-arg constructor");
+    }
+
+    private boolean process(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(mDiagnostics, null, null);
+        List<JavaFileObject> sources = new ArrayList<JavaFileObject>();
+        sources.add(new Source("com.venmo.cursor.CursorRow", CURSOR_ROW));
+        sources.add(new Source("com.venmo.cursor.Column", COLUMN));
+        sources.add(new Source("android.database.Cursor", CURSOR));
+        sources.add(new Source("com.venmo.cursor.IterableCursorWrapper",
+                ITERABLE_CURSOR_WRAPPER));
+        sources.add(new Source(className, source));
+
+        List<String> options = Arrays.asList("-d", mOutput.getPath(), "-s", mOutput.getPath());
+        CompilationTask task =
+                compiler.getTask(null, fileManager, mDiagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new CursorRowProcessor()));
+        return task.call();
+    }
+
+    private String generated(String path) throws IOException {
+        Scanner scanner = new Scanner(new File(mOutput, path), "UTF-8");
+        try {
+            return scanner.useDelimiter("\\A").next();
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private void assertCompiles(boolean success) {
+        assertTrue(mDiagnostics.getDiagnostics().toString(), success);
+    }
+
+    private void assertError(String message) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : mDiagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+                    && diagnostic.getMessage(null).contains(message)) {
+                return;
+            }
+        }
+        throw new AssertionError("No error containing \"" + message + "\" in "
+                + mDiagnostics.getDiagnostics());
+    }
+
+    private static void assertContains(String source, String expected) {
+        assertTrue("Expected\n" + expected + "\nin\n" + source, source.contains(expected));
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String mSource;
+
+        Source(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            mSource = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return mSource;
+        }
+    }
+}
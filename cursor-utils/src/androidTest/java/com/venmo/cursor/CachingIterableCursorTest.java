@@ -0,0 +1,118 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class CachingIterableCursorTest {
+
+    @Test
+    public void peekIsMemoizedByPosition() {
+        CountingCursor counting = new CountingCursor(queryRows(3));
+        CachingIterableCursor<Pojo> cursor = new CachingIterableCursor<Pojo>(counting, 10);
+
+        Pojo first = cursor.peek();
+        assertSame(first, cursor.peek());
+        cursor.moveToNext();
+        Pojo second = cursor.peek();
+        assertNotSame(first, second);
+        cursor.moveToFirst();
+        assertSame(first, cursor.peek());
+
+        assertEquals(2, counting.mPeeks.get());
+        assertEquals(2, cursor.getHitCount());
+        assertEquals(2, cursor.getMissCount());
+        assertEquals(2, cursor.getCacheSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedRowsAreEvicted() {
+        CountingCursor counting = new CountingCursor(queryRows(3));
+        CachingIterableCursor<Pojo> cursor = new CachingIterableCursor<Pojo>(counting, 2);
+
+        cursor.moveToPosition(0);
+        cursor.peek();
+        cursor.moveToPosition(1);
+        cursor.peek();
+        cursor.moveToPosition(0);
+        cursor.peek(); // 0 is now more recently used than 1
+        cursor.moveToPosition(2);
+        cursor.peek(); // evicts 1
+        assertEquals(2, cursor.getCacheSize());
+        assertEquals(3, counting.mPeeks.get());
+
+        cursor.moveToPosition(0);
+        cursor.peek();
+        assertEquals(3, counting.mPeeks.get());
+        cursor.moveToPosition(1);
+        cursor.peek();
+        assertEquals(4, counting.mPeeks.get());
+    }
+
+    @Test
+    public void boundedBySizeOf() {
+        CachingIterableCursor<Pojo> cursor =
+                new CachingIterableCursor<Pojo>(new PojoCursor(queryRows(3)), 5) {
+                    @Override
+                    protected int sizeOf(Pojo row) {
+                        return 2;
+                    }
+                };
+        for (Pojo ignored : cursor) {
+            // fill the cache
+        }
+        assertEquals(4, cursor.getCacheSize());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void requeryClearsCache() {
+        CountingCursor counting = new CountingCursor(queryRows(1));
+        CachingIterableCursor<Pojo> cursor = new CachingIterableCursor<Pojo>(counting, 10);
+
+        Pojo before = cursor.peek();
+        cursor.requery();
+        cursor.moveToFirst();
+        assertEquals(0, cursor.getCacheSize());
+        assertNotSame(before, cursor.peek());
+        assertEquals(before, cursor.peek());
+        assertEquals(2, counting.mPeeks.get());
+    }
+
+    private static Cursor queryRows(int count) {
+        TestDb db = new TestDb(Robolectric.application);
+        for (int i = 0; i < count; i++) {
+            db.insertRow(i, i, i, i, (short) i, true, new byte[]{(byte) i}, String.valueOf(i));
+        }
+        return db.query();
+    }
+
+    private static class CountingCursor extends PojoCursor {
+
+        private final AtomicInteger mPeeks = new AtomicInteger();
+
+        CountingCursor(Cursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public Pojo peek() {
+            mPeeks.incrementAndGet();
+            return super.peek();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.StaleDataException;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class ColumnarCursorTest {
+
+    private static final double DELTA = .00001d;
+
+    @Test
+    public void snapshotHasTheSameRows() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(1, 1l, 1.1f, 1.2d, (short) 1, true, new byte[]{1, 2, 3}, "a");
+        db.insertRow(2, Long.MAX_VALUE, 2.1f, 2.2d, (short) 2, false, new byte[]{4}, "b");
+
+        Cursor query = db.query();
+        List<Pojo> expected = CursorUtils.consumeToArrayList(new PojoCursor(query));
+        Cursor source = db.query();
+        ColumnarCursor snapshot = new ColumnarCursor(source);
+        source.close();
+
+        List<Pojo> actual = CursorUtils.consumeToArrayList(new PojoCursor(snapshot));
+        assertEquals(expected, actual);
+        assertTrue(snapshot.isClosed());
+    }
+
+    @Test
+    public void readingAfterCloseThrows() {
+        MatrixCursor source = new MatrixCursor(new String[]{"a"});
+        source.addRow(new Object[]{1});
+        ColumnarCursor snapshot = new ColumnarCursor(source);
+        snapshot.moveToFirst();
+        snapshot.close();
+        try {
+            snapshot.getInt(0);
+            fail("The cursor is closed");
+        } catch (StaleDataException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void doesNotChangeTheSourcePosition() {
+        MatrixCursor source = new MatrixCursor(new String[]{"a"});
+        source.addRow(new Object[]{1});
+        source.addRow(new Object[]{2});
+        source.moveToPosition(1);
+
+        ColumnarCursor snapshot = new ColumnarCursor(source);
+        assertEquals(1, source.getPosition());
+        assertEquals(-1, snapshot.getPosition());
+        assertEquals(2, snapshot.getCount());
+        assertArrayEquals(new String[]{"a"}, snapshot.getColumnNames());
+    }
+
+    @Test
+    public void nulls() {
+        MatrixCursor source = new MatrixCursor(new String[]{"int", "str", "blob", "empty"});
+        for (int i = 0; i < 130; i++) {
+            boolean isNull = i % 3 == 0;
+            source.addRow(new Object[]{isNull ? null : i, isNull ? null : "s" + i,
+                    isNull ? null : new byte[]{(byte) i}, null});
+        }
+
+        ColumnarCursor cursor = new ColumnarCursor(source);
+        for (int i = 0; cursor.moveToNext(); i++) {
+            boolean isNull = i % 3 == 0;
+            assertEquals(isNull, cursor.isNull(0));
+            assertEquals(isNull, cursor.isNull(1));
+            assertEquals(isNull, cursor.isNull(2));
+            assertTrue(cursor.isNull(3));
+            assertEquals(isNull ? Cursor.FIELD_TYPE_NULL : Cursor.FIELD_TYPE_INTEGER,
+                    cursor.getType(0));
+            assertEquals(isNull ? 0 : i, cursor.getInt(0));
+            assertEquals(isNull ? null : "s" + i, cursor.getString(1));
+            assertArrayEquals(isNull ? null : new byte[]{(byte) i}, cursor.getBlob(2));
+            assertNull(cursor.getString(3));
+            assertEquals(0, cursor.getLong(3));
+        }
+    }
+
+    @Test
+    public void convertsBetweenTypes() {
+        MatrixCursor source = new MatrixCursor(new String[]{"int", "real", "str"});
+        source.addRow(new Object[]{42, 1.5d, "7"});
+
+        ColumnarCursor cursor = new ColumnarCursor(source);
+        cursor.moveToFirst();
+        assertEquals("42", cursor.getString(0));
+        assertEquals(42d, cursor.getDouble(0), DELTA);
+        assertEquals(1, cursor.getLong(1));
+        assertEquals(1.5f, cursor.getFloat(1), DELTA);
+        assertEquals(7, cursor.getInt(2));
+        assertEquals(7d, cursor.getDouble(2), DELTA);
+        assertEquals(Cursor.FIELD_TYPE_STRING, cursor.getType(2));
+    }
+
+    @Test
+    public void columnsWithMixedTypes() {
+        MatrixCursor source = new MatrixCursor(new String[]{"mixed"});
+        source.addRow(new Object[]{1});
+        source.addRow(new Object[]{4294967296L});
+        source.addRow(new Object[]{2.5d});
+        source.addRow(new Object[]{null});
+        source.addRow(new Object[]{"text"});
+
+        ColumnarCursor cursor = new ColumnarCursor(source);
+        cursor.moveToPosition(0);
+        assertEquals(Cursor.FIELD_TYPE_INTEGER, cursor.getType(0));
+        assertEquals(1, cursor.getLong(0));
+        cursor.moveToPosition(1);
+        assertEquals(4294967296L, cursor.getLong(0));
+        cursor.moveToPosition(2);
+        assertEquals(Cursor.FIELD_TYPE_FLOAT, cursor.getType(0));
+        assertEquals(2.5d, cursor.getDouble(0), DELTA);
+        cursor.moveToPosition(3);
+        assertTrue(cursor.isNull(0));
+        cursor.moveToPosition(4);
+        assertEquals(Cursor.FIELD_TYPE_STRING, cursor.getType(0));
+        assertEquals("text", cursor.getString(0));
+        assertEquals(0, cursor.getLong(0));
+    }
+
+    @Test
+    public void mergesWithSqliteCursors() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(1, 1l, 1.1f, 1.2d, (short) 1, true, new byte[]{1}, "a");
+        TestDb otherDb = new TestDb(Robolectric.application);
+        otherDb.insertRow(2, 2l, 2.1f, 2.2d, (short) 2, false, new byte[]{2}, "b");
+
+        Cursor source = db.query();
+        IterableCursor<Pojo> snapshot = new PojoCursor(new ColumnarCursor(source));
+        source.close();
+        IterableMergeCursor<Pojo> merged =
+                new IterableMergeCursor<Pojo>(snapshot, new PojoCursor(otherDb.query()));
+
+        List<String> strings = new ArrayList<String>();
+        merged.moveToFirst();
+        int column = merged.getColumnIndexOrThrow("some_str");
+        while (!merged.isAfterLast()) {
+            strings.add(merged.getString(column));
+            merged.moveToNext();
+        }
+        assertEquals(2, strings.size());
+        assertEquals("a", strings.get(0));
+        assertEquals("b", strings.get(1));
+        assertFalse(merged.isNull(column));
+    }
+}
@@ -0,0 +1,129 @@
+package com.venmo.cursor;
+
+import android.database.DataSetObserver;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConcurrentCursorListTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void cursorReadsVersionUntilRequery() {
+        ConcurrentCursorList<String> list = new ConcurrentCursorList<String>(
+                Arrays.asList("0", "1"));
+        list.add("2");
+        assertEquals(3, list.size());
+        assertEquals(2, list.getCount());
+        Util.iterationHelper(list.snapshot(), 3);
+
+        list.moveToLast();
+        assertEquals("1", list.peek());
+        assertTrue(list.requery());
+        assertEquals(3, list.getCount());
+        assertFalse(list.isLast());
+        list.moveToLast();
+        assertEquals("2", list.peek());
+
+        list.close();
+        assertFalse(list.requery());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void requeryNotifiesObservers() {
+        ConcurrentCursorList<String> list = new ConcurrentCursorList<String>(
+                Arrays.asList("0", "1"));
+        final List<String> updates = new ArrayList<String>();
+        list.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                updates.add("changed");
+            }
+        });
+        list.add("2");
+        assertTrue(updates.isEmpty());
+        list.requery();
+        assertEquals(Arrays.asList("changed"), updates);
+    }
+
+    @Test
+    public void iteratorReadsVersionWhenCreated() {
+        ConcurrentCursorList<String> list = new ConcurrentCursorList<String>(
+                Arrays.asList("0", "1", "2"));
+        Iterator<String> iterator = list.iterator();
+        list.remove("1");
+        list.add(0, "-1");
+        List<String> read = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            read.add(iterator.next());
+        }
+        assertEquals(Arrays.asList("0", "1", "2"), read);
+        assertEquals(Arrays.asList("-1", "0", "2"), new ArrayList<String>(list));
+    }
+
+    @Test
+    public void writes() {
+        ConcurrentCursorList<String> list = new ConcurrentCursorList<String>();
+        assertTrue(list.addAll(Arrays.asList("a", "b", "c", "d")));
+        assertFalse(list.addAll(new ArrayList<String>()));
+        assertTrue(list.addAll(1, Arrays.asList("x", "y")));
+        assertEquals(Arrays.asList("a", "x", "y", "b", "c", "d"), list.snapshot());
+        assertEquals("x", list.set(1, "z"));
+        assertEquals("y", list.remove(2));
+        assertTrue(list.removeAll(Arrays.asList("a", "c")));
+        assertFalse(list.remove("q"));
+        assertEquals(Arrays.asList("z", "b", "d"), list.snapshot());
+        assertTrue(list.retainAll(Arrays.asList("b")));
+        assertEquals(Arrays.asList("b"), list.snapshot());
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void readersSeeWholeBatches() throws InterruptedException {
+        final ConcurrentCursorList<String> list = new ConcurrentCursorList<String>();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int batch = 0; batch < 200; batch++) {
+                    List<String> rows = new ArrayList<String>();
+                    for (int i = 0; i < 10; i++) {
+                        rows.add(String.valueOf(batch * 10 + i));
+                    }
+                    list.addAll(rows);
+                }
+            }
+        };
+        writer.start();
+        while (writer.isAlive() || list.size() < 2000) {
+            CursorList<String> snapshot = list.snapshot();
+            if (snapshot.getCount() % 10 != 0) {
+                failure.set("Partial batch: " + snapshot.getCount());
+            }
+            int i = 0;
+            for (String row : snapshot) {
+                if (!String.valueOf(i++).equals(row)) {
+                    failure.set("Out of order: " + row);
+                }
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertEquals(2000, list.snapshot().getCount());
+    }
+}
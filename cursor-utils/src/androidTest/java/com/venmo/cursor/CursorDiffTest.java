@@ -0,0 +1,264 @@
+package com.venmo.cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CursorDiffTest {
+
+    /** Rows are {@code "key:contents"} */
+    private static final CursorUtils.LongFunction<String> KEY =
+            new CursorUtils.LongFunction<String>() {
+                @Override
+                public long apply(String row) {
+                    return Long.parseLong(row.substring(0, row.indexOf(':')));
+                }
+            };
+
+    @Test
+    public void identicalCursors() {
+        CursorDiff diff = diff(Arrays.asList("1:a", "2:b"), Arrays.asList("1:a", "2:b"));
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void keyedUpdates() {
+        List<String> before = Arrays.asList("1:a", "2:b", "3:c", "4:d", "5:e");
+        List<String> after = Arrays.asList("1:a", "6:f", "7:g", "3:c", "2:B", "5:e");
+        RecordingCallback callback = apply(before, after);
+        assertEquals(Arrays.asList("removed 3 1", "inserted 1 2", "moved 3 4", "changed 4 1"),
+                callback.updates);
+    }
+
+    @Test
+    public void singleMove() {
+        List<String> before = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            before.add(i + ":x");
+        }
+        List<String> after = new ArrayList<String>(before);
+        after.add(after.remove(0));
+        RecordingCallback callback = apply(before, after);
+        assertEquals(Arrays.asList("moved 0 99"), callback.updates);
+    }
+
+    @Test
+    public void randomKeyedUpdates() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<String> before = new ArrayList<String>();
+            for (int i = 0; i < random.nextInt(60); i++) {
+                before.add(i + ":" + random.nextInt(3));
+            }
+            List<String> after = new ArrayList<String>();
+            for (String row : before) {
+                if (random.nextInt(4) != 0) {
+                    after.add(random.nextInt(4) == 0 ? KEY.apply(row) + ":changed" : row);
+                }
+            }
+            for (int i = 0; i < random.nextInt(20); i++) {
+                after.add(random.nextInt(after.size() + 1), (100 + i) + ":new");
+            }
+            Collections.shuffle(after.subList(0, after.size() / 3), random);
+            apply(before, after);
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void largeKeyedUpdates() {
+        int count = 60000;
+        long[] none = new long[0];
+        long[] ascending = new long[count];
+        long[] descending = new long[count];
+        for (int i = 0; i < count; i++) {
+            ascending[i] = i;
+            descending[i] = count - 1 - i;
+        }
+        final List<String> updates = new ArrayList<String>();
+        CursorDiff.Callback callback = new CursorDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("inserted " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("removed " + position + " " + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updates.add("moved");
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                updates.add("changed " + position + " " + count);
+            }
+        };
+        CursorDiff.ofKeys(none, ascending).dispatchUpdatesTo(callback);
+        assertEquals(Arrays.asList("inserted 0 " + count), updates);
+
+        updates.clear();
+        CursorDiff.ofKeys(ascending, descending).dispatchUpdatesTo(callback);
+        assertEquals(count, updates.size());
+        assertEquals(count - 1, Collections.frequency(updates, "moved"));
+        assertEquals("changed 0 " + count, updates.get(count - 1));
+
+        List<String> before = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) {
+            before.add(i + ":x");
+        }
+        List<String> after = new ArrayList<String>(before);
+        Collections.reverse(after);
+        apply(before, after);
+    }
+
+    @Test
+    public void duplicateKeysUseSequenceDiff() {
+        List<String> before = Arrays.asList("1:a", "1:b", "2:c", "3:d", "1:e");
+        List<String> after = Arrays.asList("1:a", "2:c", "4:x", "3:D", "1:e", "1:f");
+        RecordingCallback callback = apply(before, after);
+        assertEquals(Arrays.asList("removed 1 1", "inserted 2 1", "inserted 5 1", "changed 3 1"),
+                callback.updates);
+
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            apply(randomRows(random), randomRows(random));
+        }
+    }
+
+    @Test
+    public void keyColumn() {
+        TestDb oldDb = new TestDb(Robolectric.application);
+        TestDb newDb = new TestDb(Robolectric.application);
+        for (long id : new long[]{1, 2, 3}) {
+            oldDb.insertRow(0, id, 0, 0, (short) 0, true, new byte[0], "old");
+        }
+        for (long id : new long[]{3, 2, 4}) {
+            newDb.insertRow(0, id, 0, 0, (short) 0, true, new byte[0], id == 2 ? "new" : "old");
+        }
+        PojoCursor oldCursor = new PojoCursor(oldDb.query());
+        PojoCursor newCursor = new PojoCursor(newDb.query());
+        CursorDiff diff = CursorUtils.diff(oldCursor, newCursor, "some_long",
+                new CursorUtils.Equivalence<Pojo>() {
+                    @Override
+                    public boolean equivalent(Pojo a, Pojo b) {
+                        return a.toString().equals(b.toString());
+                    }
+                });
+        RecordingCallback callback = new RecordingCallback(new ArrayList<String>(
+                Arrays.asList("1", "2", "3")));
+        diff.dispatchUpdatesTo(callback);
+        assertEquals(Arrays.asList("removed 0 1", "moved 0 1", "inserted 2 1", "changed 1 1"),
+                callback.updates);
+        assertEquals(0, oldCursor.getPosition());
+        assertFalse(oldCursor.isClosed());
+    }
+
+    @Test
+    public void ofKeysChangesKeptRows() {
+        RecordingCallback callback = new RecordingCallback(new ArrayList<String>(
+                Arrays.asList("1", "2", "3")));
+        CursorDiff.ofKeys(new long[]{1, 2, 3}, new long[]{1, 3, 4}).dispatchUpdatesTo(callback);
+        assertEquals(Arrays.asList("removed 1 1", "inserted 2 1", "changed 0 2"),
+                callback.updates);
+        assertTrue(CursorDiff.ofKeys(new long[0], new long[0]).isEmpty());
+    }
+
+    private static List<String> randomRows(Random random) {
+        List<String> rows = new ArrayList<String>();
+        for (int i = 0; i < random.nextInt(30); i++) {
+            rows.add(random.nextInt(5) + ":" + random.nextInt(2));
+        }
+        return rows;
+    }
+
+    private static CursorDiff diff(List<String> before, List<String> after) {
+        return CursorUtils.diff(new CursorList<String>(before), new CursorList<String>(after),
+                KEY, null);
+    }
+
+    /**
+     * Apply the diff of {@code before} and {@code after} to a copy of {@code before}, and check
+     * that the result is {@code after}.
+     */
+    private static RecordingCallback apply(List<String> before, List<String> after) {
+        RecordingCallback callback = new RecordingCallback(new ArrayList<String>(before));
+        diff(before, after).dispatchUpdatesTo(callback);
+        List<String> rows = callback.rows;
+        assertEquals(after.size(), rows.size());
+        for (int i = 0; i < after.size(); i++) {
+            String row = rows.get(i);
+            if (row == null) {
+                // inserted
+                continue;
+            }
+            assertEquals(KEY.apply(after.get(i)), KEY.apply(row));
+            if (!row.equals(after.get(i))) {
+                assertTrue(callback.changed.contains(i));
+            }
+        }
+        for (int changed : callback.changed) {
+            assertFalse(after.get(changed).equals(rows.get(changed)));
+        }
+        return callback;
+    }
+
+    private static class RecordingCallback implements CursorDiff.Callback {
+
+        final List<String> rows;
+        final List<String> updates = new ArrayList<String>();
+        final List<Integer> changed = new ArrayList<Integer>();
+
+        RecordingCallback(List<String> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            updates.add("inserted " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                rows.add(position, null);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            updates.add("removed " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                rows.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            updates.add("moved " + fromPosition + " " + toPosition);
+            rows.add(toPosition, rows.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            updates.add("changed " + position + " " + count);
+            for (int i = 0; i < count; i++) {
+                changed.add(position + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.venmo.cursor.Util.cursorOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CursorLeakTrackerTest {
+
+    private final RecordingListener mListener = new RecordingListener();
+
+    @After
+    public void disable() {
+        CursorLeakTracker.disable();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertFalse(CursorLeakTracker.isEnabled());
+        assertNull(CursorLeakTracker.track(new CursorList<String>()));
+    }
+
+    @Test
+    public void leakedWrapperIsClosedAndReported() throws InterruptedException {
+        CursorLeakTracker.enable(mListener);
+        Cursor wrapped = buildDb().query();
+        leakWrapper(wrapped);
+
+        awaitLeak(PojoCursor.class);
+        assertTrue(wrapped.isClosed());
+        Throwable site = mListener.sites.get(mListener.classes.indexOf(PojoCursor.class));
+        assertTrue(contains(site, "leakWrapper"));
+    }
+
+    @Test
+    public void leakedMergeCursorIsReported() throws InterruptedException {
+        CursorLeakTracker.enable(mListener);
+        leakMergeCursor();
+        awaitLeak(IterableMergeCursor.class);
+    }
+
+    @Test
+    public void leakedObservedWrappersAreClosedAndReported() throws InterruptedException {
+        CursorLeakTracker.enable(mListener);
+        // each observes the cursor it wraps, which mustn't keep it reachable
+        Cursor cached = buildDb().query();
+        leakCachingCursor(cached);
+        Cursor filtered = buildDb().query();
+        leakFilterView(filtered);
+
+        awaitLeak(CachingIterableCursor.class);
+        awaitClosed(cached);
+        awaitClosed(filtered);
+        assertEquals(2, Collections.frequency(mListener.classes, PojoCursor.class));
+    }
+
+    @Test
+    public void leakedMergeOfWrappersIsClosedAndReported() throws InterruptedException {
+        CursorLeakTracker.enable(mListener);
+        Cursor first = buildDb().query();
+        Cursor second = buildDb().query();
+        leakMergeCursor(first, second);
+
+        awaitLeak(IterableMergeCursor.class);
+        awaitClosed(first);
+        awaitClosed(second);
+    }
+
+    @Test
+    public void closedCursorsAreNotLeaks() throws InterruptedException {
+        CursorLeakTracker.enable(mListener);
+        closeCursors();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            System.runFinalization();
+            CursorLeakTracker.reclaim();
+        }
+        for (Throwable site : mListener.sites) {
+            assertFalse(contains(site, "closeCursors"));
+        }
+    }
+
+    private void leakWrapper(Cursor wrapped) {
+        assertNotNull(new PojoCursor(wrapped));
+    }
+
+    private void leakCachingCursor(Cursor wrapped) {
+        assertNotNull(new CachingIterableCursor<Pojo>(new PojoCursor(wrapped), 10).peek());
+    }
+
+    private void leakFilterView(Cursor wrapped) {
+        assertNotNull(CursorUtils.filter(new PojoCursor(wrapped), new AnyRow()).peek());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void leakMergeCursor(Cursor first, Cursor second) {
+        IterableMergeCursor<Pojo> merged =
+                new IterableMergeCursor<Pojo>(new PojoCursor(first), new PojoCursor(second));
+        assertEquals(2, merged.getCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void leakMergeCursor() {
+        assertNotNull(new IterableMergeCursor<String>(cursorOf("0"), cursorOf("1")));
+    }
+
+    private void closeCursors() {
+        new PojoCursor(buildDb().query()).close();
+        new CursorList<String>().close();
+    }
+
+    private void awaitLeak(Class<?> cursorClass) throws InterruptedException {
+        for (int i = 0; i < 100 && !mListener.classes.contains(cursorClass); i++) {
+            System.gc();
+            System.runFinalization();
+            CursorLeakTracker.reclaim();
+            Thread.sleep(10);
+        }
+        assertTrue(mListener.classes.contains(cursorClass));
+    }
+
+    /** Leaked cursors are reported before the cursors they wrap are necessarily closed. */
+    private static void awaitClosed(Cursor cursor) throws InterruptedException {
+        for (int i = 0; i < 100 && !cursor.isClosed(); i++) {
+            System.gc();
+            System.runFinalization();
+            CursorLeakTracker.reclaim();
+            Thread.sleep(10);
+        }
+        assertTrue(cursor.isClosed());
+    }
+
+    private static boolean contains(Throwable site, String methodName) {
+        for (StackTraceElement element : site.getStackTrace()) {
+            if (methodName.equals(element.getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TestDb buildDb() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(1, 1, 1, 1, (short) 1, true, new byte[]{1}, "1");
+        return db;
+    }
+
+    private static class AnyRow implements CursorUtils.Predicate<Pojo> {
+        @Override
+        public boolean apply(Pojo pojo) {
+            return true;
+        }
+    }
+
+    private static class RecordingListener implements CursorLeakTracker.Listener {
+
+        // leaks may be reported from the finalizer thread
+        final List<Class<?>> classes = Collections.synchronizedList(new ArrayList<Class<?>>());
+        final List<Throwable> sites = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        @Override
+        public void onLeak(Class<?> cursorClass, Throwable allocationSite) {
+            sites.add(allocationSite);
+            classes.add(cursorClass);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.venmo.cursor;
 
+import android.database.DataSetObserver;
+
 import com.venmo.cursor.test.Pojo;
 import com.venmo.cursor.test.PojoCursor;
 import com.venmo.cursor.test.TestDb;
@@ -128,6 +130,118 @@ public class CursorListTest {
         assertEquals(2, movedThenWrapped.size());
     }
 
+    @Test
+    public void writesNotifyObservers() {
+        CursorList<String> cursor = new CursorList<>(buildList());
+        RecordingObserver observer = new RecordingObserver();
+        cursor.registerDataSetObserver(observer);
+        RecordingCallback callback = new RecordingCallback();
+        cursor.addUpdateCallback(callback);
+
+        cursor.add("3");
+        cursor.set(0, "zero");
+        cursor.remove("1");
+        cursor.addAll(1, Arrays.asList("a", "b"));
+        cursor.clear();
+        assertEquals(Arrays.asList("inserted 3 1", "changed 0 1", "removed 1 1", "inserted 1 2",
+                "removed 0 5"), callback.updates);
+        assertEquals(5, observer.changes);
+
+        cursor.removeUpdateCallback(callback);
+        cursor.unregisterDataSetObserver(observer);
+        cursor.add("ignored");
+        assertEquals(5, observer.changes);
+        assertEquals(5, callback.updates.size());
+    }
+
+    @Test
+    public void batchesNotifyOnce() {
+        CursorList<String> cursor = new CursorList<>(buildList());
+        RecordingObserver observer = new RecordingObserver();
+        cursor.registerDataSetObserver(observer);
+        RecordingCallback callback = new RecordingCallback();
+        cursor.addUpdateCallback(callback);
+
+        cursor.beginBatch();
+        for (int i = 0; i < 500; i++) {
+            cursor.add("row " + i);
+        }
+        cursor.beginBatch();
+        cursor.set(1, "one");
+        cursor.set(2, "two");
+        cursor.endBatch();
+        assertEquals(0, observer.changes);
+        cursor.endBatch();
+        assertEquals(1, observer.changes);
+        assertEquals(Arrays.asList("inserted 3 500", "changed 1 2"), callback.updates);
+
+        callback.updates.clear();
+        cursor.removeAll(Arrays.asList("0", "row 0", "row 1", "row 3"));
+        assertEquals(Arrays.asList("removed 6 1", "removed 3 2", "removed 0 1"),
+                callback.updates);
+        assertEquals(2, observer.changes);
+        assertEquals(499, cursor.size());
+        assertEquals("two", cursor.get(1));
+        assertEquals("row 2", cursor.get(2));
+        assertEquals("row 4", cursor.get(3));
+
+        callback.updates.clear();
+        cursor.retainAll(Arrays.asList("one", "row 4", "row 5", "row 499"));
+        assertEquals(Arrays.asList("removed 5 493", "removed 1 2"), callback.updates);
+        assertEquals(Arrays.asList("one", "row 4", "row 5", "row 499"),
+                new ArrayList<>(cursor));
+
+        try {
+            cursor.endBatch();
+            fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        cursor.close();
+        assertTrue(observer.invalidated);
+    }
+
+    private static class RecordingObserver extends DataSetObserver {
+
+        int changes;
+        boolean invalidated;
+
+        @Override
+        public void onChanged() {
+            changes++;
+        }
+
+        @Override
+        public void onInvalidated() {
+            invalidated = true;
+        }
+    }
+
+    private static class RecordingCallback implements CursorDiff.Callback {
+
+        final List<String> updates = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            updates.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            updates.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            updates.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            updates.add("changed " + position + " " + count);
+        }
+    }
+
     private List<String> buildList() {
         List<String> list = new ArrayList<>();
         list.add("0");
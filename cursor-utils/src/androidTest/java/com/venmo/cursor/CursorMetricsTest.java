@@ -0,0 +1,169 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.venmo.cursor.Util.cursorOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CursorMetricsTest {
+
+    @After
+    public void resetGlobal() {
+        CursorMetrics.setGlobal(CursorMetrics.NONE);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertSame(CursorMetrics.NONE, CursorMetrics.getGlobal());
+        IterableCursor<String> cursor = cursorOf("0", "1");
+        assertSame(CursorMetrics.NONE, CursorMetrics.of(cursor));
+        assertSame(CursorMetrics.NONE, CursorMetrics.of(null));
+    }
+
+    @Test
+    public void globalMetrics() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        CursorMetrics.setGlobal(metrics);
+
+        PojoCursor cursor = new PojoCursor(buildDb(3).query());
+        assertEquals(1, metrics.opened);
+        List<Pojo> pojos = CursorUtils.consumeToArrayList(cursor);
+        assertEquals(3, pojos.size());
+        assertEquals(3, metrics.mapped);
+        assertTrue(metrics.mappingNanos >= 0);
+        assertEquals(Arrays.asList(3), metrics.materialized);
+        assertEquals(1, Collections.frequency(metrics.closed, cursor));
+
+        // closing again isn't another lifetime
+        cursor.close();
+        assertEquals(1, Collections.frequency(metrics.closed, cursor));
+    }
+
+    @Test
+    public void perCursorMetrics() {
+        RecordingMetrics global = new RecordingMetrics();
+        CursorMetrics.setGlobal(global);
+        RecordingMetrics own = new RecordingMetrics();
+
+        @SuppressWarnings("unchecked")
+        IterableMergeCursor<String> merged = new IterableMergeCursor<String>(cursorOf("0", "1"),
+                cursorOf(), cursorOf("2", "3"));
+        merged.setMetrics(own);
+        assertSame(own, merged.getMetrics());
+        Util.iterationHelper(merged, 4);
+        assertEquals(4, own.mapped);
+        assertEquals(Arrays.asList(2), own.childSwitches);
+        // moving past the last row doesn't reach onMove()
+        assertEquals(3, own.moves);
+        assertEquals(0, global.mapped);
+
+        merged.setMetrics(null);
+        assertSame(global, merged.getMetrics());
+        merged.close();
+        assertTrue(global.closed.contains(merged));
+        assertTrue(own.closed.isEmpty());
+    }
+
+    @Test
+    public void cursorListMoves() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        CursorList<String> list = new CursorList<String>(Arrays.asList("0", "1", "2"));
+        list.setMetrics(metrics);
+        list.moveToPosition(2);
+        list.moveToPrevious();
+        list.moveToNext();
+        assertEquals(3, metrics.moves);
+        assertEquals("1", list.previousDocument());
+        assertEquals(1, metrics.mapped);
+        int moves = metrics.moves;
+        list.moveToLast();
+        list.moveToFirst();
+        assertEquals(moves + 2, metrics.moves);
+    }
+
+    @Test
+    public void wrapperMoves() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        PojoCursor cursor = new PojoCursor(buildDb(3).query());
+        cursor.setMetrics(metrics);
+        cursor.moveToLast();
+        cursor.moveToPrevious();
+        cursor.move(-1);
+        cursor.moveToPosition(2);
+        // moving past the last row isn't a move to a row
+        cursor.moveToNext();
+        assertEquals(4, metrics.moves);
+        cursor.moveToFirst();
+        assertEquals(5, metrics.moves);
+        cursor.close();
+    }
+
+    private static TestDb buildDb(int rows) {
+        TestDb db = new TestDb(Robolectric.application);
+        for (int i = 0; i < rows; i++) {
+            db.insertRow(i, i, i, i, (short) i, true, new byte[]{(byte) i}, String.valueOf(i));
+        }
+        return db;
+    }
+
+    private static class RecordingMetrics extends CursorMetrics {
+
+        int mapped;
+        long mappingNanos;
+        int moves;
+        int opened;
+        // leaked cursors from other tests may be closed by their finalizers at any time
+        final List<Cursor> closed = Collections.synchronizedList(new ArrayList<Cursor>());
+        final List<Integer> materialized = new ArrayList<Integer>();
+        final List<Integer> childSwitches = new ArrayList<Integer>();
+
+        @Override
+        public void onRowMapped(IterableCursor<?> cursor, long nanos) {
+            mapped++;
+            mappingNanos += nanos;
+        }
+
+        @Override
+        public void onRowsMaterialized(Cursor cursor, int rows) {
+            materialized.add(rows);
+        }
+
+        @Override
+        public void onMove(Cursor cursor, int oldPosition, int newPosition) {
+            moves++;
+        }
+
+        @Override
+        public void onChildSwitch(IterableMergeCursor<?> cursor, int childIndex) {
+            childSwitches.add(childIndex);
+        }
+
+        @Override
+        public void onOpened(Cursor cursor) {
+            opened++;
+        }
+
+        @Override
+        public void onClosed(Cursor cursor, long lifetimeNanos) {
+            closed.add(cursor);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.venmo.cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.venmo.cursor.Util.cursorOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CursorSpliteratorTest {
+
+    @Test
+    public void splitsCursorLists() {
+        CursorSpliterator<String> suffix = CursorUtils.spliterator(cursorOf("0", "1", "2", "3",
+                "4"));
+        assertEquals(5, suffix.size());
+        assertTrue((suffix.characteristics() & CursorSpliterator.SIZED) != 0);
+
+        CursorSpliterator<String> prefix = suffix.trySplit();
+        assertEquals(2, prefix.size());
+        assertEquals(3, suffix.size());
+
+        CursorSpliterator<String> first = prefix.trySplit();
+        assertEquals(Arrays.asList("0"), drain(first));
+        assertNull(first.trySplit());
+        assertEquals(Arrays.asList("1"), drain(prefix));
+        assertEquals(Arrays.asList("2", "3", "4"), drain(suffix));
+        assertEquals(0, suffix.size());
+    }
+
+    @Test
+    public void concurrentListIsReadFromSnapshot() throws InterruptedException {
+        final ConcurrentCursorList<String> list =
+                new ConcurrentCursorList<String>(Arrays.asList("0", "1", "2"));
+        CursorSpliterator<String> spliterator = CursorUtils.spliterator(list);
+        assertEquals("0", spliterator.next());
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                list.remove(2);
+                list.remove(1);
+            }
+        });
+        writer.start();
+        writer.join();
+        assertEquals(1, list.size());
+        assertEquals(Arrays.asList("1", "2"), drain(spliterator));
+    }
+
+    @Test
+    public void otherCursorsAreNotSplit() {
+        IterableCursor<String> cursor = new IterableMergeCursor<String>(cursorOf("0", "1"),
+                cursorOf("2"));
+        CursorSpliterator<String> spliterator = CursorUtils.spliterator(cursor);
+        assertEquals(3, spliterator.size());
+        assertNull(spliterator.trySplit());
+        assertEquals(Arrays.asList("0", "1", "2"), drain(spliterator));
+        assertFalse(cursor.isClosed());
+    }
+
+    @Test
+    public void splitsOpenTheirOwnCursors() {
+        final List<IterableCursor<String>> opened = new ArrayList<IterableCursor<String>>();
+        CursorUtils.CursorFactory<String> factory = new CursorUtils.CursorFactory<String>() {
+            @Override
+            public IterableCursor<String> newCursor() {
+                IterableCursor<String> cursor = new IterableMergeCursor<String>(
+                        cursorOf("0", "1", "2", "3"));
+                opened.add(cursor);
+                return cursor;
+            }
+        };
+        CursorSpliterator<String> suffix = CursorUtils.spliterator(factory);
+        CursorSpliterator<String> prefix = suffix.trySplit();
+        // the split's cursor isn't opened until it's read
+        assertEquals(1, opened.size());
+
+        assertEquals(Arrays.asList("2", "3"), drain(suffix));
+        assertTrue(opened.get(0).isClosed());
+        assertEquals("0", prefix.next());
+        assertEquals(2, opened.size());
+        assertFalse(opened.get(1).isClosed());
+        prefix.close();
+        assertTrue(opened.get(1).isClosed());
+    }
+
+    @Test
+    public void emptyFactoryCursorIsClosed() {
+        final IterableCursor<String> cursor = cursorOf();
+        CursorSpliterator<String> spliterator = CursorUtils.spliterator(
+                new CursorUtils.CursorFactory<String>() {
+                    @Override
+                    public IterableCursor<String> newCursor() {
+                        return cursor;
+                    }
+                });
+        assertEquals(0, spliterator.size());
+        assertFalse(spliterator.hasNext());
+        assertNull(spliterator.trySplit());
+        assertTrue(cursor.isClosed());
+    }
+
+    private static List<String> drain(CursorSpliterator<String> spliterator) {
+        List<String> rows = new ArrayList<String>();
+        while (spliterator.hasNext()) {
+            rows.add(spliterator.next());
+        }
+        return rows;
+    }
+}
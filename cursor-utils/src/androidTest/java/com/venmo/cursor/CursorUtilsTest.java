@@ -1,17 +1,35 @@
 package com.venmo.cursor;
 
+import android.database.Cursor;
+import android.database.DataSetObserver;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.venmo.cursor.Util.cursorOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 // TODO(ronshapiro): fail if regexp "import static junit.framework.*" is found
 @RunWith(RobolectricTestRunner.class)
@@ -68,4 +86,354 @@ public class CursorUtilsTest {
         assertEquals("4", unique.nextDocument());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void reusingRows() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(0, 0l, 0f, 0d, (short) 0, true, new byte[]{0, 0}, "0");
+        db.insertRow(1, 1l, 1f, 1d, (short) 1, true, new byte[]{1, 1}, "1");
+        db.insertRow(2, 2l, 2f, 2d, (short) 2, true, new byte[]{2, 2}, "2");
+
+        IterableCursor<StringBuilder> cursor = new IterableCursorWrapper<StringBuilder>(
+                db.query()) {
+            @Override
+            public StringBuilder peek() {
+                return peekInto(null);
+            }
+
+            @Override
+            public StringBuilder peekInto(StringBuilder reuse) {
+                StringBuilder builder = (reuse != null) ? reuse : new StringBuilder();
+                builder.setLength(0);
+                return builder.append(getString("some_str", null));
+            }
+        };
+
+        StringBuilder first = null;
+        int i = 0;
+        for (StringBuilder row : CursorUtils.reusingRows(cursor)) {
+            if (first == null) {
+                first = row;
+            }
+            assertSame(first, row);
+            assertEquals(String.valueOf(i), row.toString());
+            i++;
+        }
+        assertEquals(3, i);
+
+        // views delegate to the cursor's peekInto()
+        cursor.moveToFirst();
+        StringBuilder filtered = null;
+        for (StringBuilder row : CursorUtils.reusingRows(CursorUtils.filter(cursor,
+                new CursorUtils.Predicate<StringBuilder>() {
+                    @Override
+                    public boolean apply(StringBuilder row) {
+                        return true;
+                    }
+                }))) {
+            filtered = (filtered == null) ? row : filtered;
+            assertSame(filtered, row);
+        }
+
+        // consuming still retains distinct rows
+        cursor.moveToFirst();
+        ArrayList<StringBuilder> copy = CursorUtils.consumeToArrayList(cursor);
+        assertEquals("0", copy.get(0).toString());
+        assertEquals("2", copy.get(2).toString());
+    }
+
+    @Test
+    public void reusingRowsWithoutPeekIntoSupport() {
+        IterableCursor<String> cursor = new CursorList<String>(Arrays.asList("0", "1"));
+        List<String> rows = new ArrayList<String>();
+        for (String row : CursorUtils.reusingRows(cursor)) {
+            rows.add(row);
+        }
+        assertEquals(Arrays.asList("0", "1"), rows);
+    }
+
+    @Test
+    public void filter() {
+        final List<String> tested = new ArrayList<String>();
+        IterableCursor<String> cursor = CursorUtils.filter(
+                Util.cursorOf("0", "1", "2", "3", "4", "5", "6"),
+                new CursorUtils.Predicate<String>() {
+                    @Override
+                    public boolean apply(String s) {
+                        tested.add(s);
+                        return Integer.parseInt(s) % 2 == 0;
+                    }
+                });
+        // only as far as the first match
+        assertEquals("0", cursor.peek());
+        assertEquals(Arrays.asList("0"), tested);
+
+        assertTrue(cursor.moveToPosition(2));
+        assertEquals("4", cursor.peek());
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), tested);
+
+        // matches are remembered, so going back doesn't test anything
+        assertTrue(cursor.moveToPosition(1));
+        assertEquals("2", cursor.peek());
+        assertEquals(5, tested.size());
+
+        assertEquals(4, cursor.getCount());
+        assertEquals(7, tested.size());
+        assertFalse(cursor.moveToPosition(4));
+        assertTrue(cursor.isAfterLast());
+
+        cursor.moveToFirst();
+        assertEquals(Arrays.asList("0", "2", "4", "6"), CursorUtils.consumeToArrayList(cursor));
+        assertEquals(7, tested.size());
+    }
+
+    @Test
+    public void filterWithNoMatches() {
+        IterableCursor<String> cursor = CursorUtils.filter(Util.cursorOf("0", "1"),
+                new CursorUtils.Predicate<String>() {
+                    @Override
+                    public boolean apply(String s) {
+                        return false;
+                    }
+                });
+        assertTrue(cursor.isBeforeFirst());
+        assertTrue(cursor.isAfterLast());
+        assertFalse(cursor.moveToFirst());
+        assertEquals(0, cursor.getCount());
+        assertFalse(cursor.iterator().hasNext());
+    }
+
+    @Test
+    public void filterKeepsColumns() {
+        TestDb db = new TestDb(Robolectric.application);
+        for (int i = 0; i < 5; i++) {
+            db.insertRow(i, i, i, i, (short) i, true, new byte[0], String.valueOf(i));
+        }
+        IterableCursor<Pojo> cursor = CursorUtils.filter(new PojoCursor(db.query()),
+                new CursorUtils.Predicate<Pojo>() {
+                    @Override
+                    public boolean apply(Pojo pojo) {
+                        return !pojo.toString().contains("str='2'");
+                    }
+                });
+        int column = cursor.getColumnIndexOrThrow("some_str");
+        List<String> strings = new ArrayList<String>();
+        for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+            strings.add(cursor.getString(column));
+        }
+        assertEquals(Arrays.asList("0", "1", "3", "4"), strings);
+        cursor.close();
+        assertTrue(cursor.isClosed());
+    }
+
+    @Test
+    public void map() {
+        final AtomicInteger applied = new AtomicInteger();
+        IterableCursor<Integer> cursor = CursorUtils.map(Util.cursorOf("0", "1", "2"),
+                new CursorUtils.Function<String, Integer>() {
+                    @Override
+                    public Integer apply(String s) {
+                        applied.incrementAndGet();
+                        return Integer.parseInt(s) * 10;
+                    }
+                });
+        assertEquals(3, cursor.getCount());
+        cursor.moveToPosition(2);
+        assertEquals(0, applied.get());
+        assertEquals(20, (int) cursor.peek());
+        assertEquals(1, applied.get());
+
+        cursor.moveToFirst();
+        assertEquals(Arrays.asList(0, 10, 20), CursorUtils.consumeToArrayList(cursor));
+    }
+
+    @Test
+    public void removeDuplicatesByColumn() {
+        TestDb db = new TestDb(Robolectric.application);
+        long[] keys = {3, 1, 3, 0, 2, 1, 0};
+        for (int i = 0; i < keys.length; i++) {
+            db.insertRow(i, keys[i], 0, 0, (short) 0, true, new byte[0], String.valueOf(i));
+        }
+        db.getWritableDatabase().execSQL("insert into TEST (some_int) values (7)");
+        db.getWritableDatabase().execSQL("insert into TEST (some_int) values (8)");
+
+        IterableCursor<Pojo> cursor =
+                CursorUtils.removeDuplicates(new PojoCursor(db.query()), "some_long");
+        int column = cursor.getColumnIndexOrThrow("some_int");
+        List<Integer> rows = new ArrayList<Integer>();
+        for (; !cursor.isAfterLast(); cursor.moveToNext()) {
+            rows.add(cursor.getInt(column));
+        }
+        // rows with a null key are kept
+        assertEquals(Arrays.asList(0, 1, 3, 4, 7, 8), rows);
+        assertEquals(6, cursor.getCount());
+
+        cursor.moveToFirst();
+        assertEquals(6, CursorUtils.consumeToArrayList(cursor).size());
+        assertTrue(cursor.isClosed());
+    }
+
+    @Test
+    public void removeDuplicatesByMissingColumn() {
+        final List<DataSetObserver> observers = new ArrayList<DataSetObserver>();
+        CursorList<String> cursor = new CursorList<String>(Arrays.asList("a", "a")) {
+            @Override
+            public void registerDataSetObserver(DataSetObserver observer) {
+                observers.add(observer);
+                super.registerDataSetObserver(observer);
+            }
+        };
+        try {
+            CursorUtils.removeDuplicates(cursor, "missing");
+            fail("The column is missing");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        // the view never observed the cursor
+        assertTrue(observers.isEmpty());
+    }
+
+    @Test
+    public void removeDuplicatesByKeyFunction() {
+        List<String> initial = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            initial.add(String.valueOf(i % 2500 - 1000));
+        }
+        final AtomicInteger keyed = new AtomicInteger();
+        IterableCursor<String> cursor = CursorUtils.removeDuplicates(
+                new CursorList<String>(initial), new CursorUtils.LongFunction<String>() {
+                    @Override
+                    public long apply(String s) {
+                        keyed.incrementAndGet();
+                        return Long.parseLong(s) * 1000000007L;
+                    }
+                });
+        assertEquals("-1000", cursor.peek());
+        assertEquals(1, keyed.get());
+
+        assertEquals(2500, cursor.getCount());
+        assertEquals(10000, keyed.get());
+        ArrayList<String> unique = CursorUtils.consumeToArrayList(cursor);
+        assertEquals(initial.subList(0, 2500), unique);
+        assertEquals(10000, keyed.get());
+    }
+
+    @Test
+    public void consumeToArrayListInParallel() {
+        final List<String> initial = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            initial.add(String.valueOf(i));
+        }
+        final List<IterableCursor<String>> opened =
+                Collections.synchronizedList(new ArrayList<IterableCursor<String>>());
+        CursorUtils.CursorFactory<String> factory = new CursorUtils.CursorFactory<String>() {
+            @Override
+            public IterableCursor<String> newCursor() {
+                IterableCursor<String> cursor = new CursorList<String>(initial);
+                opened.add(cursor);
+                return cursor;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ArrayList<String> rows = CursorUtils.consumeToArrayList(factory, executor, 4);
+            assertEquals(initial, rows);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4, opened.size());
+        for (IterableCursor<String> cursor : opened) {
+            assertTrue(cursor.isClosed());
+        }
+    }
+
+    @Test
+    public void consumeToArrayListInParallelRethrows() {
+        CursorUtils.CursorFactory<String> factory = new CursorUtils.CursorFactory<String>() {
+            @Override
+            public IterableCursor<String> newCursor() {
+                return new CursorList<String>(Arrays.asList("0", "1", "2", "3")) {
+                    @Override
+                    public String peek() {
+                        if (getPosition() == 2) {
+                            throw new IllegalArgumentException("bad row");
+                        }
+                        return super.peek();
+                    }
+                };
+            }
+        };
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        try {
+            CursorUtils.consumeToArrayList(factory, direct, 2);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals("bad row", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void consumeToArrayListInParallelWithEmptyCursor() {
+        CursorUtils.CursorFactory<String> factory = new CursorUtils.CursorFactory<String>() {
+            @Override
+            public IterableCursor<String> newCursor() {
+                return new CursorList<String>();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(CursorUtils.consumeToArrayList(factory, executor, 4).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void consumeToPrimitiveArrays() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(1, 10000000000L, 0, 1.5d, (short) 0, true, new byte[0], "a");
+        db.getWritableDatabase().execSQL("insert into TEST (some_str) values ('b')");
+        db.insertRow(3, -3L, 0, 3.5d, (short) 0, true, new byte[0], "c");
+
+        Cursor longs = db.query();
+        assertArrayEquals(new long[]{10000000000L, -1, -3},
+                CursorUtils.consumeToLongArray(longs, "some_long", -1));
+        assertTrue(longs.isClosed());
+
+        Cursor ints = db.query();
+        assertArrayEquals(new int[]{1, 0, 3},
+                CursorUtils.consumeToIntArray(ints, ints.getColumnIndex("some_int"), 0));
+        assertTrue(ints.isClosed());
+
+        double[] doubles = CursorUtils.consumeToDoubleArray(db.query(), "some_double", Double.NaN);
+        assertEquals(3, doubles.length);
+        assertEquals(1.5d, doubles[0], 0);
+        assertTrue(Double.isNaN(doubles[1]));
+        assertEquals(3.5d, doubles[2], 0);
+    }
+
+    @Test
+    public void consumeToLongArrayFromCursorList() {
+        IterableCursor<String> cursor = cursorOf("a", "b", "c");
+        assertArrayEquals(new long[]{0, 1, 2}, CursorUtils.consumeToLongArray(cursor, "_id", -1));
+        assertTrue(cursor.isClosed());
+        assertEquals(0, CursorUtils.consumeToLongArray(cursorOf(), "_id", -1).length);
+    }
+
+    @Test
+    public void consumeToLongArrayClosesOnMissingColumn() {
+        IterableCursor<String> cursor = cursorOf("a");
+        try {
+            CursorUtils.consumeToLongArray(cursor, "missing", -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(cursor.isClosed());
+        }
+    }
+
+}
@@ -9,8 +9,13 @@ import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -25,7 +30,11 @@ public class IterableCursorAdapterTest {
     private class TestAdapter extends IterableCursorAdapter<Object> {
 
         private TestAdapter(IterableCursor<Object> c) {
-            super(Robolectric.application, c, false /* autoRequery */);
+            this(c, false);
+        }
+
+        private TestAdapter(IterableCursor<Object> c, boolean autoRequery) {
+            super(Robolectric.application, c, autoRequery);
         }
 
         @Override
@@ -93,4 +102,128 @@ public class IterableCursorAdapterTest {
                 adapter.getCursor());
         assertEquals(2, counter.get());
     }
+
+    @Test
+    public void autoRequeryKeepsWrittenRows() {
+        CursorList<Object> cursor = new CursorList<>();
+        cursor.add("obj0");
+        TestAdapter adapter = new TestAdapter(cursor, true);
+        cursor.add("obj1");
+        assertEquals(2, adapter.getCount());
+        assertEquals("obj1", adapter.getItem(1));
+        cursor.remove(0);
+        assertEquals(1, adapter.getCount());
+    }
+
+    @Test
+    public void prefetchesSurroundingRows() {
+        final AtomicInteger peeks = new AtomicInteger();
+        final AtomicInteger prefetched = new AtomicInteger();
+        final List<Object> objects = Arrays.<Object>asList("obj0", "obj1", "obj2", "obj3", "obj4");
+        final List<IterableCursor<Object>> opened = new ArrayList<>();
+        CursorList<Object> cursor = new CursorList<Object>(objects) {
+            @Override
+            public Object peek() {
+                peeks.incrementAndGet();
+                return super.peek();
+            }
+        };
+        final AtomicReference<Object> bound = new AtomicReference<>();
+        TestAdapter adapter = new TestAdapter(cursor) {
+            @Override
+            public void bindView(View view, Context context, Object o) {
+                bound.set(o);
+            }
+        };
+        adapter.enablePrefetching(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, new CursorUtils.CursorFactory<Object>() {
+            @Override
+            public IterableCursor<Object> newCursor() {
+                IterableCursor<Object> prefetchCursor = new CursorList<Object>(objects) {
+                    @Override
+                    public Object peek() {
+                        prefetched.incrementAndGet();
+                        return super.peek();
+                    }
+                };
+                opened.add(prefetchCursor);
+                return prefetchCursor;
+            }
+        }, 2);
+
+        View view = new View(Robolectric.application);
+        bindViewAt(adapter, view, 0);
+        assertEquals("obj0", bound.get());
+        assertEquals(1, peeks.get()); // 0
+        assertEquals(2, prefetched.get()); // 1 and 2, from the prefetcher's own cursor
+
+        bindViewAt(adapter, view, 1);
+        assertEquals("obj1", bound.get());
+        assertEquals(1, peeks.get());
+        assertEquals(3, prefetched.get()); // 3
+        assertEquals("obj2", adapter.getItem(2));
+        assertEquals(1, peeks.get());
+        assertEquals(4, prefetched.get()); // 4
+
+        adapter.swapCursor(new CursorList<>(objects));
+        assertTrue(opened.get(0).isClosed());
+        bindViewAt(adapter, view, 1);
+        assertEquals("obj1", bound.get());
+        assertEquals(1, peeks.get()); // the old cursor is no longer used
+        assertEquals(2, opened.size());
+        assertEquals(7, prefetched.get()); // 2, 0 and 3, from a new prefetching cursor
+    }
+
+    @Test(timeout = 5000)
+    public void prefetchingDoesNotBlockBinding() throws InterruptedException {
+        final List<Object> objects = Arrays.<Object>asList("obj0", "obj1", "obj2");
+        final CountDownLatch prefetching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicReference<Object> bound = new AtomicReference<>();
+        TestAdapter adapter = new TestAdapter(new CursorList<>(objects)) {
+            @Override
+            public void bindView(View view, Context context, Object o) {
+                bound.set(o);
+            }
+        };
+        adapter.enablePrefetching(executor, new CursorUtils.CursorFactory<Object>() {
+            @Override
+            public IterableCursor<Object> newCursor() {
+                return new CursorList<Object>(objects) {
+                    @Override
+                    public Object peek() {
+                        prefetching.countDown();
+                        try {
+                            release.await(); // simulate slow I/O
+                        } catch (InterruptedException e) {
+                            throw new AssertionError(e);
+                        }
+                        return super.peek();
+                    }
+                };
+            }
+        }, 1);
+        try {
+            // Robolectric's CursorAdapter shadow doesn't bind in getView(), so bind directly
+            View view = new View(Robolectric.application);
+            bindViewAt(adapter, view, 0); // starts prefetching row 1
+            prefetching.await();
+            bindViewAt(adapter, view, 1);
+            assertEquals("obj1", bound.get());
+            assertEquals("obj2", adapter.getItem(2));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void bindViewAt(TestAdapter adapter, View view, int position) {
+        adapter.getCursor().moveToPosition(position); // simulate list scrolling
+        adapter.bindView(view, Robolectric.application, adapter.getCursor());
+    }
 }
@@ -0,0 +1,145 @@
+package com.venmo.cursor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class IterableCursorLoaderTest {
+
+    @Test
+    public void deliversWarmCursor() {
+        QueuedExecutor executor = new QueuedExecutor();
+        IterableCursorLoader<String> loader = new IterableCursorLoader<String>(executor, 2);
+        CountingFactory factory = new CountingFactory("a", "b", "c");
+        RecordingCallback callback = new RecordingCallback();
+
+        loader.load(factory, callback);
+        assertNull(callback.loaded);
+        executor.runAll();
+
+        CachingIterableCursor<String> cursor = (CachingIterableCursor<String>) callback.loaded;
+        assertEquals(0, cursor.getPosition());
+        assertEquals(2, factory.peeks);
+        assertEquals(2, cursor.getCacheSize());
+        assertEquals("a", cursor.peek());
+        assertEquals(2, factory.peeks);
+        cursor.close();
+    }
+
+    @Test
+    public void supersededLoadIsClosed() {
+        QueuedExecutor executor = new QueuedExecutor();
+        IterableCursorLoader<String> loader = new IterableCursorLoader<String>(executor);
+        CountingFactory first = new CountingFactory("a");
+        CountingFactory second = new CountingFactory("b");
+        RecordingCallback callback = new RecordingCallback();
+
+        loader.load(first, callback);
+        loader.load(second, callback);
+        executor.runAll();
+        assertEquals(0, first.opened.size());
+        assertEquals(1, callback.deliveries);
+        assertSame(second.opened.get(0), callback.loaded);
+        assertFalse(callback.loaded.isClosed());
+
+        // the cursor is opened, but cancelled before it's delivered
+        Robolectric.pauseMainLooper();
+        loader.load(first, callback);
+        executor.runAll();
+        loader.cancel();
+        Robolectric.unPauseMainLooper();
+        assertTrue(first.opened.get(0).isClosed());
+        assertEquals(1, callback.deliveries);
+    }
+
+    @Test
+    public void failureIsDelivered() {
+        final IllegalStateException failure = new IllegalStateException();
+        IterableCursorLoader<String> loader = new IterableCursorLoader<String>(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        RecordingCallback callback = new RecordingCallback();
+        loader.load(new CursorUtils.CursorFactory<String>() {
+            @Override
+            public IterableCursor<String> newCursor() {
+                throw failure;
+            }
+        }, callback);
+        assertSame(failure, callback.failure);
+        assertNull(callback.loaded);
+    }
+
+    private static class QueuedExecutor implements Executor {
+
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static class CountingFactory implements CursorUtils.CursorFactory<String> {
+
+        final List<String> rows;
+        final List<IterableCursor<String>> opened = new ArrayList<IterableCursor<String>>();
+        int peeks;
+
+        CountingFactory(String... rows) {
+            this.rows = Arrays.asList(rows);
+        }
+
+        @Override
+        public IterableCursor<String> newCursor() {
+            IterableCursor<String> cursor = new CursorList<String>(rows) {
+                @Override
+                public String peek() {
+                    peeks++;
+                    return super.peek();
+                }
+            };
+            opened.add(cursor);
+            return cursor;
+        }
+    }
+
+    private static class RecordingCallback implements IterableCursorLoader.Callback<String> {
+
+        IterableCursor<String> loaded;
+        RuntimeException failure;
+        int deliveries;
+
+        @Override
+        public void onLoaded(IterableCursor<String> cursor) {
+            loaded = cursor;
+            deliveries++;
+        }
+
+        @Override
+        public void onLoadFailed(RuntimeException e) {
+            failure = e;
+        }
+    }
+}
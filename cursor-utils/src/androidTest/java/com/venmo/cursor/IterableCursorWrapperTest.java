@@ -10,10 +10,12 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(RobolectricTestRunner.class)
 public class IterableCursorWrapperTest {
@@ -73,6 +75,39 @@ public class IterableCursorWrapperTest {
         assertTrue(Arrays.equals(new byte[]{4, 5, 6}, blobNotFound));
     }
 
+    @Test
+    public void columnIndicesAreCached() {
+        TestDb db = new TestDb(Robolectric.application);
+
+        db.insertRow(1, 1l, 1.1f, 1.2d, (short) 1, true, new byte[]{1, 2, 3}, "a");
+        final AtomicInteger lookups = new AtomicInteger();
+        IterableCursorWrapper<?> cursor = new IterableCursorWrapper<Object>(db.query()) {
+            @Override
+            public Object peek() {
+                return null;
+            }
+
+            @Override
+            public int getColumnIndex(String columnName) {
+                lookups.incrementAndGet();
+                return super.getColumnIndex(columnName);
+            }
+        };
+
+        assertEquals("a", cursor.getString("some_str", "not_found"));
+        assertEquals("a", cursor.getString("some_str", "not_found"));
+        assertEquals(1, lookups.get());
+
+        assertEquals("not_found", cursor.getString("other", "not_found"));
+        assertEquals(-1, cursor.getInteger("other", -1));
+        assertEquals(2, lookups.get());
+
+        cursor.requery();
+        cursor.moveToFirst();
+        assertEquals("a", cursor.getString("some_str", "not_found"));
+        assertEquals(3, lookups.get());
+    }
+
     @Test
     public void iterating() {
         TestDb db = new TestDb(Robolectric.application);
@@ -175,6 +210,95 @@ public class IterableCursorWrapperTest {
         assertEquals(p0, cursor.previousDocument());
     }
 
+    @Test
+    public void readColumn() {
+        TestDb db = new TestDb(Robolectric.application);
+        for (int i = 0; i < 5; i++) {
+            db.insertRow(i, i * 10l, i + .5f, i + .25d, (short) -i, i % 2 == 0, new byte[0],
+                    "s" + i);
+        }
+        IterableCursorWrapper<Pojo> cursor = new PojoCursor(db.query());
+        cursor.moveToPosition(3);
+
+        long[] longs = new long[4];
+        assertEquals(3, cursor.readColumn("some_long", longs, 1, 2, 3));
+        assertTrue(Arrays.equals(new long[]{0, 20, 30, 40}, longs));
+        assertEquals(3, cursor.getPosition());
+
+        int[] ints = new int[5];
+        assertEquals(5, cursor.readColumn("some_int", ints, 0, 0, 5));
+        assertTrue(Arrays.equals(new int[]{0, 1, 2, 3, 4}, ints));
+        // stops at the end of the cursor
+        assertEquals(2, cursor.readColumn("some_int", ints, 0, 3, 5));
+
+        short[] shorts = new short[2];
+        assertEquals(2, cursor.readColumn("some_short", shorts, 0, 1, 2));
+        assertTrue(Arrays.equals(new short[]{-1, -2}, shorts));
+
+        double[] doubles = new double[1];
+        assertEquals(1, cursor.readColumn("some_double", doubles, 0, 4, 1));
+        assertEquals(4.25d, doubles[0], DELTA);
+
+        float[] floats = new float[1];
+        assertEquals(1, cursor.readColumn("some_float", floats, 0, 0, 1));
+        assertEquals(.5f, floats[0], DELTA);
+
+        boolean[] booleans = new boolean[3];
+        assertEquals(3, cursor.readColumn("some_boolean", booleans, 0, 0, 3));
+        assertTrue(Arrays.equals(new boolean[]{true, false, true}, booleans));
+
+        String[] strings = new String[2];
+        assertEquals(0, cursor.readColumn("some_str", strings, 0, 5, 2));
+        assertEquals(2, cursor.readColumn("some_str", strings, 0, 3, 2));
+        assertTrue(Arrays.equals(new String[]{"s3", "s4"}, strings));
+        assertEquals(3, cursor.getPosition());
+    }
+
+    @Test
+    public void readColumnChecksArguments() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(0, 0l, 0f, 0d, (short) 0, true, new byte[0], "0");
+        IterableCursorWrapper<Pojo> cursor = new PojoCursor(db.query());
+        try {
+            cursor.readColumn("other", new long[1], 0, 0, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            cursor.readColumn("some_long", new long[1], 1, 0, 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void columnUsage() {
+        TestDb db = new TestDb(Robolectric.application);
+        db.insertRow(0, 0l, 0f, 0d, (short) 0, true, new byte[0], "0");
+        db.insertRow(1, 1l, 1f, 1d, (short) 1, true, new byte[0], "1");
+        IterableCursorWrapper<String> cursor = new IterableCursorWrapper<String>(db.query()) {
+            @Override
+            public String peek() {
+                return getString("some_str", null) + getLong("some_long", -1) + getString(
+                        "other", "");
+            }
+        };
+        assertEquals(null, cursor.getColumnUsage());
+        ColumnUsage usage = cursor.trackColumnUsage();
+        CursorUtils.consumeToArrayList(cursor);
+        assertTrue(cursor.isClosed());
+
+        assertEquals(2, usage.getReads("some_str"));
+        assertEquals(0, usage.getReads("some_blob"));
+        assertEquals(Arrays.asList("some_str", "some_long"),
+                Arrays.asList(usage.getUsedColumns()));
+        assertEquals(Arrays.asList("some_int", "some_boolean", "some_float", "some_double",
+                "some_short", "some_byte_array"), Arrays.asList(usage.getUnusedColumns()));
+        assertEquals(8, usage.getColumnNames().length);
+        assertEquals("used: some_str=2, some_long=2; unused: some_int, some_boolean, some_float, "
+                + "some_double, some_short, some_byte_array", usage.toString());
+    }
+
     private void iterationHelper(IterableCursor<Pojo> cursor, Pojo[] samples) {
         int i = 0;
         for (Pojo pojo : cursor) {
@@ -4,8 +4,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.venmo.cursor.Util.cursorOf;
 import static com.venmo.cursor.Util.iterationHelper;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 public class IterableMergeCursorTest {
@@ -89,4 +95,77 @@ public class IterableMergeCursorTest {
         iterationHelper(merged, 5);
     }
 
+    @Test
+    public void withEmptyCursors() {
+        IterableCursor<String> first = cursorOf();
+        IterableCursor<String> second = cursorOf("0", "1");
+        IterableCursor<String> third = cursorOf();
+        IterableCursor<String> fourth = cursorOf();
+        IterableCursor<String> fifth = cursorOf("2");
+        IterableCursor<String> sixth = cursorOf();
+
+        @SuppressWarnings("unchecked") IterableMergeCursor<String> merged =
+                new IterableMergeCursor<String>(first, second, third, fourth, fifth, sixth);
+        iterationHelper(merged, 3);
+    }
+
+    @Test
+    public void randomAccessAcrossManyCursors() {
+        @SuppressWarnings("unchecked") IterableCursor<String>[] cursors = new IterableCursor[50];
+        int count = 0;
+        for (int i = 0; i < cursors.length; i++) {
+            List<String> strings = new ArrayList<String>();
+            for (int j = 0; j < i % 4; j++) {
+                strings.add(String.valueOf(count++));
+            }
+            cursors[i] = new CursorList<String>(strings);
+        }
+        IterableMergeCursor<String> merged = new IterableMergeCursor<String>(cursors);
+        assertEquals(count, merged.getCount());
+
+        for (int position = count - 1; position >= 0; position -= 7) {
+            assertTrue(merged.moveToPosition(position));
+            assertEquals(String.valueOf(position), merged.peek());
+        }
+        assertFalse(merged.moveToPosition(count));
+        assertTrue(merged.isAfterLast());
+
+        merged.moveToFirst();
+        iterationHelper(merged, count);
+    }
+
+    @Test
+    public void columnsAreReadFromTheCurrentCursor() {
+        IterableCursor<String> first = cursorOf("0", "1", "2");
+        IterableCursor<String> second = cursorOf("3", "4");
+
+        IterableMergeCursor<String> merged = new IterableMergeCursor<String>(first, second);
+        int idIndex = merged.getColumnIndexOrThrow("_id");
+        merged.moveToPosition(1);
+        assertEquals(1, merged.getLong(idIndex));
+        merged.moveToPosition(4);
+        assertEquals(1, merged.getLong(idIndex));
+        merged.moveToPosition(3);
+        assertEquals(0, merged.getLong(idIndex));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void requeryPicksUpChangedCounts() {
+        CursorList<String> first = new CursorList<String>();
+        first.add("0");
+        IterableCursor<String> second = cursorOf("2");
+
+        IterableMergeCursor<String> merged = new IterableMergeCursor<String>(first, second);
+        assertEquals(2, merged.getCount());
+
+        first.add("1");
+        merged.requery();
+        assertEquals(3, merged.getCount());
+        merged.moveToPosition(1);
+        assertEquals("1", merged.peek());
+        merged.moveToPosition(2);
+        assertEquals("2", merged.peek());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.venmo.cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.venmo.cursor.Util.cursorOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class IterableSortedMergeCursorTest {
+
+    private static final Comparator<String> BY_NUMBER = new Comparator<String>() {
+        @Override
+        public int compare(String lhs, String rhs) {
+            return Integer.valueOf(lhs).compareTo(Integer.valueOf(rhs));
+        }
+    };
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void interleavesSortedCursors() {
+        IterableSortedMergeCursor<String> merged = new IterableSortedMergeCursor<String>(BY_NUMBER,
+                cursorOf("1", "4", "7"), cursorOf("0", "2", "3", "9"), null, cursorOf(),
+                cursorOf("5", "6", "8"));
+        assertEquals(10, merged.getCount());
+        Util.iterationHelper(merged, 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void randomAccess() {
+        Random random = new Random(42);
+        List<String> expected = new ArrayList<String>();
+        List<IterableCursor<String>> cursors = new ArrayList<IterableCursor<String>>();
+        for (int i = 0; i < 5; i++) {
+            List<String> sorted = new ArrayList<String>();
+            for (int j = 0; j < 100; j++) {
+                sorted.add(String.valueOf(random.nextInt(1000)));
+            }
+            Collections.sort(sorted, BY_NUMBER);
+            expected.addAll(sorted);
+            cursors.add(new CursorList<String>(sorted));
+        }
+        Collections.sort(expected, BY_NUMBER);
+
+        IterableSortedMergeCursor<String> merged = new IterableSortedMergeCursor<String>(
+                BY_NUMBER, cursors.toArray(new IterableCursor[cursors.size()]));
+        for (int position : new int[]{250, 3, 499, 0, 100, 400, 251}) {
+            assertTrue(merged.moveToPosition(position));
+            assertEquals(expected.get(position), merged.peek());
+        }
+        assertFalse(merged.moveToPosition(500));
+        assertTrue(merged.isAfterLast());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mergesLazily() {
+        final AtomicInteger comparisons = new AtomicInteger();
+        Comparator<String> counting = new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                comparisons.incrementAndGet();
+                return BY_NUMBER.compare(lhs, rhs);
+            }
+        };
+        List<String> evens = new ArrayList<String>();
+        List<String> odds = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            (i % 2 == 0 ? evens : odds).add(String.valueOf(i));
+        }
+        IterableSortedMergeCursor<String> merged = new IterableSortedMergeCursor<String>(counting,
+                new CursorList<String>(evens), new CursorList<String>(odds));
+        assertEquals("0", merged.peek());
+        assertTrue(comparisons.get() < 5);
+        merged.moveToPosition(9);
+        assertEquals("9", merged.peek());
+        assertTrue(comparisons.get() < 20);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void equalRowsKeepChildOrder() {
+        List<String> first = Arrays.asList("1a", "2a");
+        List<String> second = Arrays.asList("1b", "2b");
+        Comparator<String> byDigit = new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return lhs.charAt(0) - rhs.charAt(0);
+            }
+        };
+        IterableSortedMergeCursor<String> merged = new IterableSortedMergeCursor<String>(byDigit,
+                new CursorList<String>(first), new CursorList<String>(second));
+        assertEquals(Arrays.asList("1a", "1b", "2a", "2b"),
+                CursorUtils.consumeToArrayList(merged));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void byKeyColumn() {
+        TestDb local = new TestDb(Robolectric.application);
+        TestDb synced = new TestDb(Robolectric.application);
+        for (long timestamp : new long[]{10, 30, 50}) {
+            local.insertRow(0, timestamp, 0, 0, (short) 0, true, new byte[0], "local");
+        }
+        for (long timestamp : new long[]{20, 30, 40, 60}) {
+            synced.insertRow(0, timestamp, 0, 0, (short) 0, true, new byte[0], "synced");
+        }
+
+        IterableSortedMergeCursor<Pojo> merged = new IterableSortedMergeCursor<Pojo>("some_long",
+                new PojoCursor(local.query()), new PojoCursor(synced.query()));
+        int timestamp = merged.getColumnIndexOrThrow("some_long");
+        int source = merged.getColumnIndexOrThrow("some_str");
+        List<Long> timestamps = new ArrayList<Long>();
+        List<String> sources = new ArrayList<String>();
+        for (merged.moveToFirst(); !merged.isAfterLast(); merged.moveToNext()) {
+            timestamps.add(merged.getLong(timestamp));
+            sources.add(merged.getString(source));
+        }
+        assertEquals(Arrays.asList(10L, 20L, 30L, 30L, 40L, 50L, 60L), timestamps);
+        assertEquals(Arrays.asList("local", "synced", "local", "synced", "synced", "local",
+                "synced"), sources);
+
+        merged.close();
+        assertTrue(merged.isClosed());
+    }
+}
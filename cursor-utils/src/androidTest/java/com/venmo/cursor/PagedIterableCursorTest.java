@@ -0,0 +1,222 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+import android.database.DataSetObserver;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class PagedIterableCursorTest {
+
+    private static final String KEY = "some_int";
+
+    @Test
+    public void iteratesOverAllPages() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(10), 3, 2);
+        List<Integer> keys = new ArrayList<Integer>();
+        for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+            keys.add(key(cursor));
+        }
+        assertEquals(10, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i + 1, (int) keys.get(i));
+        }
+
+        cursor.moveToFirst();
+        int rows = 0;
+        for (Pojo ignored : cursor) {
+            rows++;
+        }
+        assertEquals(10, rows);
+        assertEquals(10, cursor.getCount());
+        // no count query since the last page was loaded
+        assertEquals(0, cursor.countQueries.get());
+        assertTrue(cursor.openPages() <= 2);
+    }
+
+    @Test
+    public void newCursorIsOnFirstRow() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(10), 3, 2);
+        assertEquals(0, cursor.getPosition());
+        assertEquals(0, cursor.pageQueries.get());
+        int rows = 0;
+        for (Pojo ignored : cursor) {
+            rows++;
+        }
+        assertEquals(10, rows);
+    }
+
+    @Test
+    public void singleOpenPage() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(10), 3, 1);
+        List<Integer> keys = new ArrayList<Integer>();
+        for (; !cursor.isAfterLast(); cursor.moveToNext()) {
+            keys.add(key(cursor));
+            assertEquals(1, cursor.openPages());
+        }
+        assertEquals(10, keys.size());
+        assertEquals(10, (int) keys.get(9));
+
+        assertTrue(cursor.moveToPosition(7));
+        assertEquals(8, key(cursor));
+        assertTrue(cursor.moveToPosition(1));
+        assertEquals(2, key(cursor));
+        assertEquals(1, cursor.openPages());
+    }
+
+    @Test
+    public void sequentialScanQueriesEachPageOnce() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(10), 3, 2);
+        for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+            key(cursor);
+        }
+        assertEquals(4, cursor.pageQueries.get());
+        assertEquals(0, cursor.countQueries.get());
+        assertTrue(cursor.openPages() <= 2);
+    }
+
+    @Test
+    public void firstRowOnlyLoadsFirstPage() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(100), 10, 2);
+        assertTrue(cursor.moveToFirst());
+        assertEquals(1, key(cursor));
+        assertEquals(1, cursor.pageQueries.get());
+    }
+
+    @Test
+    public void randomAccess() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(20), 4, 2);
+        assertTrue(cursor.moveToPosition(13));
+        assertEquals(14, key(cursor));
+        assertEquals(4, cursor.pageQueries.get());
+
+        // the keys of earlier pages are known, so going back is a single query
+        assertTrue(cursor.moveToPosition(1));
+        assertEquals(2, key(cursor));
+        assertEquals(5, cursor.pageQueries.get());
+        assertTrue(cursor.openPages() <= 2);
+
+        assertFalse(cursor.moveToPosition(20));
+        assertTrue(cursor.isAfterLast());
+        assertEquals(20, cursor.getPosition());
+        assertFalse(cursor.moveToPosition(-1));
+        assertTrue(cursor.isBeforeFirst());
+    }
+
+    @Test
+    public void countUsesQueryUntilLastPageIsLoaded() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(5), 2, 2);
+        assertEquals(5, cursor.getCount());
+        assertEquals(1, cursor.countQueries.get());
+        assertEquals(0, cursor.pageQueries.get());
+
+        assertTrue(cursor.moveToLast());
+        assertTrue(cursor.isLast());
+        assertEquals(5, key(cursor));
+    }
+
+    @Test
+    public void emptyQuery() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(0), 2, 2);
+        assertFalse(cursor.moveToFirst());
+        assertTrue(cursor.isAfterLast());
+        assertEquals(0, cursor.getCount());
+        assertFalse(cursor.iterator().hasNext());
+    }
+
+    @Test
+    public void requeryClosesPages() {
+        TestPagedCursor cursor = new TestPagedCursor(buildDb(6), 2, 3);
+        final AtomicInteger changes = new AtomicInteger();
+        cursor.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                changes.incrementAndGet();
+            }
+        });
+        cursor.moveToPosition(5);
+        assertEquals(3, cursor.openPages());
+
+        assertTrue(cursor.requery());
+        assertEquals(1, changes.get());
+        assertEquals(0, cursor.openPages());
+        assertTrue(cursor.isBeforeFirst());
+        assertTrue(cursor.moveToPosition(5));
+
+        cursor.close();
+        assertTrue(cursor.isClosed());
+        assertEquals(0, cursor.openPages());
+    }
+
+    private static int key(Cursor cursor) {
+        return cursor.getInt(cursor.getColumnIndexOrThrow(KEY));
+    }
+
+    private static TestDb buildDb(int rows) {
+        TestDb db = new TestDb(Robolectric.application);
+        for (int i = 1; i <= rows; i++) {
+            db.insertRow(i, i, i, i, (short) i, true, new byte[]{(byte) i}, String.valueOf(i));
+        }
+        return db;
+    }
+
+    private static class TestPagedCursor extends PagedIterableCursor<Pojo> {
+
+        final AtomicInteger pageQueries = new AtomicInteger();
+        final AtomicInteger countQueries = new AtomicInteger();
+        private final TestDb mDb;
+        private final List<Cursor> mPages = new ArrayList<Cursor>();
+
+        TestPagedCursor(TestDb db, int pageSize, int maxPages) {
+            super(KEY, pageSize, maxPages);
+            mDb = db;
+        }
+
+        @Override
+        protected IterableCursor<Pojo> queryPage(long afterKey, int limit) {
+            pageQueries.incrementAndGet();
+            Cursor page = mDb.getReadableDatabase().query("TEST", null, KEY + " > ?",
+                    new String[]{String.valueOf(afterKey)}, null, null, KEY,
+                    String.valueOf(limit));
+            mPages.add(page);
+            return new PojoCursor(page);
+        }
+
+        @Override
+        protected int queryCount() {
+            countQueries.incrementAndGet();
+            Cursor count = mDb.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM TEST", null);
+            try {
+                count.moveToFirst();
+                return count.getInt(0);
+            } finally {
+                count.close();
+            }
+        }
+
+        int openPages() {
+            int open = 0;
+            for (Cursor page : mPages) {
+                if (!page.isClosed()) {
+                    open++;
+                }
+            }
+            return open;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.venmo.cursor;
+
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class TailCursorListTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void refreshAppendsNewRows() {
+        final TestDb db = new TestDb(Robolectric.application);
+        insert(db, 1, 2);
+        final List<Long> queries = new ArrayList<>();
+        TailCursorList<Pojo> list = new TailCursorList<>("some_long",
+                new TailCursorList.TailQuery<Pojo>() {
+                    @Override
+                    public IterableCursor<Pojo> queryAfter(long afterKey) {
+                        queries.add(afterKey);
+                        return new PojoCursor(db.getReadableDatabase().query("TEST", null,
+                                "some_long > ?", new String[]{String.valueOf(afterKey)}, null,
+                                null, "some_long"));
+                    }
+                });
+        assertEquals(2, list.refresh());
+        assertEquals(2, list.getLastKey());
+
+        final List<String> updates = new ArrayList<>();
+        list.addUpdateCallback(new CursorDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("inserted " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("removed " + position + " " + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updates.add("moved " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                updates.add("changed " + position + " " + count);
+            }
+        });
+        list.moveToPosition(1);
+        Pojo second = list.peek();
+
+        insert(db, 3, 4, 5);
+        assertTrue(list.requery());
+        assertEquals(Arrays.asList(Long.MIN_VALUE, 2L), queries);
+        assertEquals(Arrays.asList("inserted 2 3"), updates);
+        assertEquals(5, list.getCount());
+        assertEquals(1, list.getPosition());
+        assertEquals(second, list.peek());
+        assertEquals(5, list.getLastKey());
+
+        assertEquals(0, list.refresh());
+        assertEquals(1, updates.size());
+        list.close();
+        assertFalse(list.requery());
+        assertEquals(3, queries.size());
+    }
+
+    @Test
+    public void mergedCursorSeesAppendedRows() {
+        TestDb db = new TestDb(Robolectric.application);
+        insert(db, 1, 2);
+        TailCursorList<Pojo> older = newTail(db);
+        older.refresh();
+        TailCursorList<Pojo> tail = newTail(db);
+        tail.refresh();
+        @SuppressWarnings("unchecked")
+        IterableMergeCursor<Pojo> merged = new IterableMergeCursor<Pojo>(older, tail);
+        assertEquals(4, merged.getCount());
+
+        insert(db, 3);
+        tail.refresh();
+        assertEquals(5, merged.getCount());
+        merged.moveToLast();
+        assertEquals(tail.get(2), merged.peek());
+        merged.close();
+    }
+
+    @Test
+    public void failedRefreshIsRetried() {
+        final TestDb db = new TestDb(Robolectric.application);
+        insert(db, 1, 2, 3);
+        final boolean[] failing = {true};
+        TailCursorList<Pojo> list = new TailCursorList<>("some_long",
+                new TailCursorList.TailQuery<Pojo>() {
+                    @Override
+                    public IterableCursor<Pojo> queryAfter(long afterKey) {
+                        return new PojoCursor(db.getReadableDatabase().query("TEST", null,
+                                "some_long > ?", new String[]{String.valueOf(afterKey)}, null,
+                                null, "some_long")) {
+                            @Override
+                            public Pojo peek() {
+                                if (failing[0] && getPosition() == 2) {
+                                    throw new IllegalStateException();
+                                }
+                                return super.peek();
+                            }
+                        };
+                    }
+                });
+        try {
+            list.refresh();
+            fail("The third row should fail");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(0, list.getCount());
+        assertEquals(Long.MIN_VALUE, list.getLastKey());
+
+        failing[0] = false;
+        assertEquals(3, list.refresh());
+        assertEquals(3, list.getLastKey());
+        list.close();
+    }
+
+    private static TailCursorList<Pojo> newTail(final TestDb db) {
+        return new TailCursorList<>("some_long", new TailCursorList.TailQuery<Pojo>() {
+            @Override
+            public IterableCursor<Pojo> queryAfter(long afterKey) {
+                return new PojoCursor(db.getReadableDatabase().query("TEST", null,
+                        "some_long > ?", new String[]{String.valueOf(afterKey)}, null, null,
+                        "some_long"));
+            }
+        });
+    }
+
+    private static void insert(TestDb db, long... keys) {
+        for (long key : keys) {
+            db.insertRow(0, key, 0, 0, (short) 0, true, new byte[0], String.valueOf(key));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.venmo.cursor.support;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.venmo.cursor.CursorList;
+import com.venmo.cursor.IterableCursor;
+import com.venmo.cursor.test.Pojo;
+import com.venmo.cursor.test.PojoCursor;
+import com.venmo.cursor.test.TestDb;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class IterableCursorRecyclerAdapterTest {
+
+    private static class Holder extends RecyclerView.ViewHolder {
+        Object bound;
+
+        Holder() {
+            super(new View(Robolectric.application));
+        }
+    }
+
+    private static class TestAdapter<T> extends IterableCursorRecyclerAdapter<T, Holder> {
+
+        TestAdapter(IterableCursor<T> cursor, String idColumn) {
+            super(cursor, idColumn);
+        }
+
+        @Override
+        public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new Holder();
+        }
+
+        @Override
+        public void onBindViewHolder(Holder holder, T t) {
+            holder.bound = t;
+        }
+
+        @Override
+        public int getItemViewType(T t) {
+            return t.toString().length();
+        }
+    }
+
+    @Test
+    public void translatesEachBoundRowOnce() {
+        final int[] peeks = new int[1];
+        CursorList<String> cursor = new CursorList<String>(Arrays.asList("a", "bb", "ccc")) {
+            @Override
+            public String peek() {
+                peeks[0]++;
+                return super.peek();
+            }
+        };
+        TestAdapter<String> adapter = new TestAdapter<String>(cursor, null);
+        assertFalse(adapter.hasStableIds());
+        assertEquals(3, adapter.getItemCount());
+
+        Holder holder = new Holder();
+        assertEquals(2, adapter.getItemViewType(1));
+        adapter.onBindViewHolder(holder, 1);
+        assertEquals("bb", holder.bound);
+        assertEquals(1, peeks[0]);
+
+        adapter.onBindViewHolder(holder, 2);
+        assertEquals(2, adapter.getItemViewType(1));
+        assertEquals(2, peeks[0]);
+        assertEquals(RecyclerView.NO_ID, adapter.getItemId(0));
+    }
+
+    @Test
+    public void writesToCursorResetCaches() {
+        CursorList<String> cursor = new CursorList<>(new ArrayList<>(Arrays.asList("a", "bb")));
+        TestAdapter<String> adapter = new TestAdapter<String>(cursor, null);
+        assertEquals(2, adapter.getItemViewType(1));
+        assertEquals("bb", adapter.getItem(1));
+
+        cursor.add("cccc");
+        adapter.notifyItemInserted(2);
+        assertEquals(3, adapter.getItemCount());
+        assertEquals(4, adapter.getItemViewType(2));
+
+        cursor.set(1, "d");
+        adapter.notifyItemChanged(1);
+        assertEquals("d", adapter.getItem(1));
+        assertEquals(1, adapter.getItemViewType(1));
+
+        adapter.swapCursor(null);
+        cursor.add("e"); // no longer observed by the adapter
+        assertEquals(0, adapter.getItemCount());
+    }
+
+    @Test
+    public void swapWithoutIdsChangesDataSet() {
+        TestAdapter<String> adapter = new TestAdapter<String>(
+                new CursorList<String>(Arrays.asList("a")), null);
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+        adapter.changeCursor(new CursorList<String>(Arrays.asList("a", "b")));
+        assertEquals(Arrays.asList("changed"), observer.updates);
+        assertEquals(2, adapter.getItemCount());
+        adapter.swapCursor(null);
+        assertEquals(0, adapter.getItemCount());
+    }
+
+    @Test
+    public void swapWithIdsNotifiesUpdates() {
+        PojoCursor first = buildCursor(1, 2, 3, 4);
+        TestAdapter<Pojo> adapter = new TestAdapter<Pojo>(first, "some_long");
+        assertTrue(adapter.hasStableIds());
+        assertEquals(3, adapter.getItemId(2));
+        RecordingObserver observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+
+        adapter.changeCursor(buildCursor(4, 1, 3, 5));
+        assertTrue(first.isClosed());
+        assertEquals(Arrays.asList("removed 1 1", "moved 2 0", "inserted 3 1", "changed 0 3"),
+                observer.updates);
+        assertEquals(4, adapter.getItemId(0));
+        assertEquals(5, adapter.getItemId(3));
+    }
+
+    private static PojoCursor buildCursor(long... ids) {
+        TestDb db = new TestDb(Robolectric.application);
+        for (long id : ids) {
+            db.insertRow(0, id, 0, 0, (short) 0, true, new byte[0], String.valueOf(id));
+        }
+        return new PojoCursor(db.query());
+    }
+
+    private static class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+        final List<String> updates = new ArrayList<String>();
+
+        @Override
+        public void onChanged() {
+            updates.add("changed");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            updates.add("changed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            updates.add("inserted " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            updates.add("removed " + positionStart + " " + itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            updates.add("moved " + fromPosition + " " + toPosition);
+        }
+    }
+}
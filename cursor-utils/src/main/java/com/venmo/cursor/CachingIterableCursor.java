@@ -0,0 +1,130 @@
+package com.venmo.cursor;
+
+import android.database.DataSetObserver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An {@link IterableCursor} which memoizes the {@link #peek()} of another {@link IterableCursor}
+ * by position, so that rows which are requested several times (e.g. by {@link
+ * IterableCursorAdapter#getItem(int)} and {@link IterableCursorAdapter#bindView(android.view.View,
+ * android.content.Context, Object)}, or when scrolling back and forth) are only translated once.
+ * <p/>
+ * The cache holds at most {@code maxSize} rows, least recently used first out. Override {@link
+ * #sizeOf(Object)} to bound it by an estimate of each row's size (e.g. in bytes) instead. It is
+ * cleared on {@link #requery()}, {@link #close()} and whenever the underlying cursor notifies its
+ * {@link DataSetObserver}s.
+ */
+public class CachingIterableCursor<T> extends IterableCursorWrapper<T> {
+
+    private final IterableCursor<T> mIterableCursor;
+    private final int mMaxSize;
+    private final LinkedHashMap<Integer, T> mRows =
+            new LinkedHashMap<Integer, T>(16, 0.75f, true /* accessOrder */);
+    private int mSize;
+    private int mHitCount;
+    private int mMissCount;
+
+    private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            evictAll();
+        }
+
+        @Override
+        public void onInvalidated() {
+            evictAll();
+        }
+    };
+
+    /**
+     * @param maxSize the maximum number of rows to cache, or if {@link #sizeOf(Object)} is
+     * overridden, the maximum sum of their sizes.
+     */
+    public CachingIterableCursor(IterableCursor<T> cursor, int maxSize) {
+        super(cursor);
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        mIterableCursor = cursor;
+        mMaxSize = maxSize;
+        cursor.registerDataSetObserver(mDataSetObserver);
+    }
+
+    @Override
+    public T peek() {
+        Integer position = getPosition();
+        T row = mRows.get(position);
+        if (row != null) {
+            mHitCount++;
+            return row;
+        }
+        mMissCount++;
+        row = mIterableCursor.peek();
+        if (row != null) {
+            put(position, row);
+        }
+        return row;
+    }
+
+    private void put(Integer position, T row) {
+        int size = sizeOf(row);
+        if (size < 0) {
+            throw new IllegalStateException("Negative size for " + row);
+        }
+        mRows.put(position, row);
+        mSize += size;
+
+        Iterator<Map.Entry<Integer, T>> iterator = mRows.entrySet().iterator();
+        while (mSize > mMaxSize && iterator.hasNext()) {
+            T eldest = iterator.next().getValue();
+            iterator.remove();
+            mSize -= sizeOf(eldest);
+        }
+    }
+
+    /**
+     * The size of {@code row} in the units of {@code maxSize}. Defaults to 1, which bounds the
+     * cache by its number of rows. The size of a row must not change while it is cached.
+     */
+    protected int sizeOf(T row) {
+        return 1;
+    }
+
+    /** Remove every cached row. */
+    public void evictAll() {
+        mRows.clear();
+        mSize = 0;
+    }
+
+    /** The number of {@link #peek()}s which were served from the cache. */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /** The number of {@link #peek()}s which had to translate the row. */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /** The sum of {@link #sizeOf(Object)} for all cached rows. */
+    public int getCacheSize() {
+        return mSize;
+    }
+
+    @Deprecated
+    @Override
+    public boolean requery() {
+        evictAll();
+        return super.requery();
+    }
+
+    @Override
+    public void close() {
+        evictAll();
+        mIterableCursor.unregisterDataSetObserver(mDataSetObserver);
+        super.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.venmo.cursor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The column that a field or constructor parameter of a {@link CursorRow} is read from. Supported
+ * types are {@code int}, {@code long}, {@code float}, {@code double}, {@code short}, {@code
+ * boolean}, their boxed equivalents, {@link String} and {@code byte[]}.
+ * <p/>
+ * If the column is not part of the cursor, primitives are read as their Java default value and
+ * everything else as {@code null}. Boxed types are also {@code null} if the value is SQL {@code
+ * NULL}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface Column {
+
+    /** The name of the column in the cursor. */
+    String value();
+}
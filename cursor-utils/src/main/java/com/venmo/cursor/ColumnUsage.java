@@ -0,0 +1,90 @@
+package com.venmo.cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which columns of a query were read, as recorded by {@link
+ * IterableCursorWrapper#trackColumnUsage()}, so that a query with a {@code null} or wide projection
+ * can be narrowed to {@link #getUsedColumns()}. Every column in a query's projection is copied
+ * into its {@link android.database.CursorWindow}, whether it's read or not, which is expensive for
+ * unread {@code BLOB} and {@code TEXT} columns.
+ * <p/>
+ * It may still be read after its cursor is closed, e.g. after {@link
+ * CursorUtils#consumeToArrayList(IterableCursor)}.
+ */
+public final class ColumnUsage {
+
+    private final String[] mColumnNames;
+    private final int[] mReads;
+
+    ColumnUsage(String[] columnNames) {
+        mColumnNames = columnNames;
+        mReads = new int[columnNames.length];
+    }
+
+    void read(int columnIndex) {
+        if (columnIndex >= 0 && columnIndex < mReads.length) {
+            mReads[columnIndex]++;
+        }
+    }
+
+    /** Every column of the query, in order. */
+    public String[] getColumnNames() {
+        return mColumnNames.clone();
+    }
+
+    /**
+     * The number of values read from {@code columnName}, including {@code isNull()} checks, or 0
+     * if the query has no such column.
+     */
+    public int getReads(String columnName) {
+        int reads = 0;
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if (mColumnNames[i].equals(columnName)) {
+                reads += mReads[i];
+            }
+        }
+        return reads;
+    }
+
+    /** The columns which were read, in query order. This is the suggested projection. */
+    public String[] getUsedColumns() {
+        return columns(true);
+    }
+
+    /** The columns which were never read, and could be left out of the projection. */
+    public String[] getUnusedColumns() {
+        return columns(false);
+    }
+
+    private String[] columns(boolean used) {
+        List<String> columns = new ArrayList<String>();
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if ((mReads[i] > 0) == used) {
+                columns.add(mColumnNames[i]);
+            }
+        }
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    /** A report of the reads of each column, e.g. {@code used: _id=20, name=20; unused: photo}. */
+    @Override
+    public String toString() {
+        StringBuilder used = new StringBuilder("used: ");
+        StringBuilder unused = new StringBuilder("unused: ");
+        boolean anyUsed = false;
+        boolean anyUnused = false;
+        for (int i = 0; i < mColumnNames.length; i++) {
+            if (mReads[i] > 0) {
+                used.append(anyUsed ? ", " : "").append(mColumnNames[i]).append('=')
+                        .append(mReads[i]);
+                anyUsed = true;
+            } else {
+                unused.append(anyUnused ? ", " : "").append(mColumnNames[i]);
+                anyUnused = true;
+            }
+        }
+        return used.append("; ").append(unused).toString();
+    }
+}
@@ -0,0 +1,401 @@
+package com.venmo.cursor;
+
+import android.annotation.TargetApi;
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.database.StaleDataException;
+import android.database.sqlite.SQLiteException;
+import android.os.Build.VERSION_CODES;
+
+/**
+ * An in-memory snapshot of a {@link Cursor} which stores each column in a primitive array ({@code
+ * int[]}, {@code long[]} or {@code double[]}, or an array of {@link String}s or blobs), with a
+ * bitmap of its {@code null}s. It supports the full {@link Cursor} column API, converting values
+ * between types the same way SQLite does, and takes a fraction of the memory of a {@link
+ * java.util.List} of objects which hold the same values.
+ * <p/>
+ * Wrap it in an {@link IterableCursorWrapper} to read the rows as objects, just as you would the
+ * original cursor:
+ * <pre>{@code
+ * IterableCursor<User> users = new UserCursor(new ColumnarCursor(db.queryAllUsers()));
+ * }</pre>
+ * Since it has real columns, it can also be combined with SQLite cursors in an {@link
+ * IterableMergeCursor}.
+ *
+ * @see CursorList
+ */
+@TargetApi(VERSION_CODES.HONEYCOMB)
+public class ColumnarCursor extends AbstractCursor {
+
+    private final String[] mColumnNames;
+    private final int mCount;
+    private Column[] mColumns;
+
+    /**
+     * Copy every row of {@code cursor}. This does not close {@code cursor}, nor change its
+     * position.
+     */
+    public ColumnarCursor(Cursor cursor) {
+        if (cursor == null) {
+            throw new NullPointerException("Cursor parameter must be non-null");
+        }
+        if (cursor.isClosed()) {
+            throw new IllegalArgumentException("Cursor parameter must not be closed");
+        }
+
+        mColumnNames = cursor.getColumnNames();
+        mCount = cursor.getCount();
+        mColumns = new Column[mColumnNames.length];
+        for (int i = 0; i < mColumns.length; i++) {
+            mColumns[i] = new Column(mCount);
+        }
+
+        int position = cursor.getPosition();
+        try {
+            for (int row = 0; cursor.moveToPosition(row); row++) {
+                for (int i = 0; i < mColumns.length; i++) {
+                    mColumns[i].copy(cursor, i, row);
+                }
+            }
+        } finally {
+            cursor.moveToPosition(position);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public String getString(int column) {
+        return getColumn(column).getString(mPos);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return getColumn(column).getLong(mPos);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return getColumn(column).getDouble(mPos);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return getColumn(column).getBlob(mPos);
+    }
+
+    @Override
+    public int getType(int column) {
+        return getColumn(column).getType(mPos);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return getColumn(column).isNull(mPos);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        mColumns = null;
+    }
+
+    private Column getColumn(int column) {
+        if (mColumns == null) {
+            throw new StaleDataException("Attempting to read a closed ColumnarCursor");
+        }
+        checkPosition();
+        if (column < 0 || column >= mColumnNames.length) {
+            throw new IllegalArgumentException("Invalid column index " + column);
+        }
+        return mColumns[column];
+    }
+
+    /**
+     * The values of one column. The array is picked by the first non-null value: integers start
+     * in an {@code int[]} and are widened to a {@code long[]} once one doesn't fit. A column whose
+     * values have different types falls back to an {@code Object[]}.
+     */
+    private static final class Column {
+
+        private static final int INTS = 0;
+        private static final int LONGS = 1;
+        private static final int DOUBLES = 2;
+        private static final int STRINGS = 3;
+        private static final int BLOBS = 4;
+        private static final int MIXED = 5;
+        private static final int EMPTY = 6;
+
+        private final int mSize;
+        private int mStorage = EMPTY;
+        private int[] mInts;
+        private long[] mLongs;
+        private double[] mDoubles;
+        private Object[] mObjects;
+        /** A set bit for each null value; only allocated once there is one */
+        private long[] mNulls;
+
+        Column(int size) {
+            mSize = size;
+        }
+
+        void copy(Cursor cursor, int column, int row) {
+            switch (cursor.getType(column)) {
+                case FIELD_TYPE_INTEGER:
+                    putLong(row, cursor.getLong(column));
+                    break;
+                case FIELD_TYPE_FLOAT:
+                    putDouble(row, cursor.getDouble(column));
+                    break;
+                case FIELD_TYPE_STRING:
+                    putObject(row, cursor.getString(column), STRINGS);
+                    break;
+                case FIELD_TYPE_BLOB:
+                    putObject(row, cursor.getBlob(column), BLOBS);
+                    break;
+                default:
+                    if (mNulls == null) {
+                        mNulls = new long[(mSize + 63) >>> 6];
+                    }
+                    mNulls[row >>> 6] |= 1L << row;
+            }
+        }
+
+        private void putLong(int row, long value) {
+            if (mStorage == EMPTY) {
+                mStorage = INTS;
+                mInts = new int[mSize];
+            }
+            if (mStorage == INTS && (int) value != value) {
+                mLongs = new long[mSize];
+                for (int i = 0; i < row; i++) {
+                    mLongs[i] = mInts[i];
+                }
+                mInts = null;
+                mStorage = LONGS;
+            }
+            switch (mStorage) {
+                case INTS:
+                    mInts[row] = (int) value;
+                    break;
+                case LONGS:
+                    mLongs[row] = value;
+                    break;
+                default:
+                    toMixed(row)[row] = value;
+            }
+        }
+
+        private void putDouble(int row, double value) {
+            if (mStorage == EMPTY) {
+                mStorage = DOUBLES;
+                mDoubles = new double[mSize];
+            }
+            if (mStorage == DOUBLES) {
+                mDoubles[row] = value;
+            } else {
+                toMixed(row)[row] = value;
+            }
+        }
+
+        private void putObject(int row, Object value, int storage) {
+            if (mStorage == EMPTY) {
+                mStorage = storage;
+                mObjects = new Object[mSize];
+            }
+            if (mStorage == storage) {
+                mObjects[row] = value;
+            } else {
+                toMixed(row)[row] = value;
+            }
+        }
+
+        /** Box the first {@code row} values into {@link #mObjects}, if they aren't already */
+        private Object[] toMixed(int row) {
+            if (mStorage == MIXED) {
+                return mObjects;
+            }
+            if (mStorage != STRINGS && mStorage != BLOBS) {
+                mObjects = new Object[mSize];
+                for (int i = 0; i < row; i++) {
+                    if (!isNull(i)) {
+                        mObjects[i] = box(i);
+                    }
+                }
+                mInts = null;
+                mLongs = null;
+                mDoubles = null;
+            }
+            mStorage = MIXED;
+            return mObjects;
+        }
+
+        private Object box(int row) {
+            switch (mStorage) {
+                case INTS:
+                    return (long) mInts[row];
+                case LONGS:
+                    return mLongs[row];
+                case DOUBLES:
+                    return mDoubles[row];
+                default:
+                    return mObjects[row];
+            }
+        }
+
+        boolean isNull(int row) {
+            return mNulls != null && (mNulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        int getType(int row) {
+            if (isNull(row)) {
+                return FIELD_TYPE_NULL;
+            }
+            switch (mStorage) {
+                case INTS:
+                case LONGS:
+                    return FIELD_TYPE_INTEGER;
+                case DOUBLES:
+                    return FIELD_TYPE_FLOAT;
+                case STRINGS:
+                    return FIELD_TYPE_STRING;
+                case BLOBS:
+                    return FIELD_TYPE_BLOB;
+                default:
+                    return typeOf(mObjects[row]);
+            }
+        }
+
+        long getLong(int row) {
+            if (isNull(row)) {
+                return 0;
+            }
+            switch (mStorage) {
+                case INTS:
+                    return mInts[row];
+                case LONGS:
+                    return mLongs[row];
+                case DOUBLES:
+                    return (long) mDoubles[row];
+                default:
+                    Object value = mObjects[row];
+                    if (value instanceof Number) {
+                        return ((Number) value).longValue();
+                    }
+                    return parseLong(value);
+            }
+        }
+
+        double getDouble(int row) {
+            if (isNull(row)) {
+                return 0;
+            }
+            switch (mStorage) {
+                case INTS:
+                    return mInts[row];
+                case LONGS:
+                    return mLongs[row];
+                case DOUBLES:
+                    return mDoubles[row];
+                default:
+                    Object value = mObjects[row];
+                    if (value instanceof Number) {
+                        return ((Number) value).doubleValue();
+                    }
+                    return parseDouble(value);
+            }
+        }
+
+        String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (mStorage) {
+                case INTS:
+                    return Integer.toString(mInts[row]);
+                case LONGS:
+                    return Long.toString(mLongs[row]);
+                case DOUBLES:
+                    return Double.toString(mDoubles[row]);
+                default:
+                    Object value = mObjects[row];
+                    if (value instanceof byte[]) {
+                        throw new SQLiteException("Unable to convert BLOB to string");
+                    }
+                    return value.toString();
+            }
+        }
+
+        byte[] getBlob(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            Object value = (mStorage == STRINGS || mStorage == BLOBS || mStorage == MIXED)
+                    ? mObjects[row] : null;
+            if (value instanceof byte[]) {
+                return (byte[]) value;
+            }
+            if (value instanceof String) {
+                return ((String) value).getBytes();
+            }
+            throw new SQLiteException("Unable to convert a number to a BLOB");
+        }
+
+        private static int typeOf(Object value) {
+            if (value instanceof Long) {
+                return FIELD_TYPE_INTEGER;
+            } else if (value instanceof Double) {
+                return FIELD_TYPE_FLOAT;
+            } else if (value instanceof String) {
+                return FIELD_TYPE_STRING;
+            }
+            return FIELD_TYPE_BLOB;
+        }
+
+        private static long parseLong(Object value) {
+            if (value instanceof String) {
+                try {
+                    return Long.parseLong(((String) value).trim());
+                } catch (NumberFormatException e) {
+                    // fall through for e.g. "1.5"
+                }
+            }
+            return (long) parseDouble(value);
+        }
+
+        /** Like SQLite, text which isn't a number is read as 0 */
+        private static double parseDouble(Object value) {
+            if (value instanceof byte[]) {
+                throw new SQLiteException("Unable to convert BLOB to a number");
+            }
+            try {
+                return Double.parseDouble(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
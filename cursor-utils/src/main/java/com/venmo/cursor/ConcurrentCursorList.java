@@ -0,0 +1,90 @@
+package com.venmo.cursor;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link CursorList} which may be written to from any thread while it's being read. Its list is
+ * copy-on-write: each write publishes a new version of the rows atomically, and bulk writes such
+ * as {@link #addAll(Collection)} publish once for the whole batch.
+ * <p/>
+ * Readers never lock. As a cursor, it reads the version of the rows from when it was created or
+ * last {@link #requery() requeried}, like a database cursor, so that its count and rows don't
+ * change underneath an adapter; call {@link #requery()} once writes should become visible. Its
+ * {@link #iterator()} reads the version that was current when it was created. For another reader
+ * with its own position, use {@link #snapshot()}.
+ * <p/>
+ * Since writes don't change what the cursor reads, observers are notified by {@link #requery()}
+ * rather than by each write, and update callbacks are told that every row was replaced.
+ * <p/>
+ * The {@link List} methods, such as {@link #get(int)} and {@link #size()}, read the current
+ * version of the rows rather than the cursor's, so until the next {@link #requery()}, {@code
+ * get(getPosition())} may not be {@link #peek()} and {@link #size()} may not be {@link
+ * #getCount()}. Each call may read a newer version than the last; use {@link #snapshot()} to read
+ * one version throughout.
+ */
+public class ConcurrentCursorList<E> extends CursorList<E> {
+
+    private final SnapshotList<E> mRows;
+    /** The version of the rows read by the cursor methods */
+    private List<E> mCursorRows;
+
+    public ConcurrentCursorList() {
+        this(new SnapshotList<E>());
+    }
+
+    /**
+     * Start with a copy of {@code rows}.
+     */
+    public ConcurrentCursorList(Collection<? extends E> rows) {
+        this(new SnapshotList<E>(rows));
+    }
+
+    private ConcurrentCursorList(SnapshotList<E> rows) {
+        super(rows);
+        mRows = rows;
+        mCursorRows = rows.snapshot();
+    }
+
+    @Override
+    boolean reportsWrites() {
+        return false;
+    }
+
+    @Override
+    List<E> rows() {
+        return mCursorRows;
+    }
+
+    /**
+     * A {@link CursorList} of the current version of the rows, which never changes. It has its own
+     * position, so it can be read on another thread.
+     */
+    public CursorList<E> snapshot() {
+        return new CursorList<E>(mRows.snapshot());
+    }
+
+    /**
+     * Start reading the current version of the rows as a cursor.
+     *
+     * @return false if the list is closed
+     */
+    @Deprecated
+    @Override
+    public boolean requery() {
+        if (isClosed()) {
+            return false;
+        }
+        int oldCount = mCursorRows.size();
+        mCursorRows = mRows.snapshot();
+        CursorDiff updates = new CursorDiff();
+        if (oldCount > 0) {
+            updates.removed(0, oldCount);
+        }
+        if (!mCursorRows.isEmpty()) {
+            updates.inserted(0, mCursorRows.size());
+        }
+        notifyChanged(updates);
+        return true;
+    }
+}
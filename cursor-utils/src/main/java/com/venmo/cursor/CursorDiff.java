@@ -0,0 +1,437 @@
+package com.venmo.cursor;
+
+import java.util.Arrays;
+
+/**
+ * The inserts, removes, moves and changes which turn the rows of one query into those of another,
+ * as computed by {@link CursorUtils#diff(IterableCursor, IterableCursor, String,
+ * CursorUtils.Equivalence)}. Rows are matched by a {@code long} key. When the keys are unique, any
+ * row whose key is in both queries is kept, and the fewest rows are moved to put the kept rows in
+ * order. Otherwise the key sequences are compared with Myers' algorithm, which only inserts and
+ * removes.
+ * <p/>
+ * Updates are dispatched in an order that can be applied one at a time, each position relative to
+ * the rows after the previous updates, like RecyclerView's {@code ListUpdateCallback}.
+ */
+public final class CursorDiff {
+
+    /** Receives the updates of a {@link CursorDiff}, in order. */
+    public interface Callback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        /** The rows at {@code position} are kept, but their contents changed. */
+        void onChanged(int position, int count);
+    }
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    /** Bounds the memory of Myers' algorithm; beyond it, all rows are replaced */
+    private static final int MAX_TRACE = 1 << 20;
+
+    /** Updates as {@code (type, position or from, count or to)} triples */
+    private int[] mUpdates = new int[3 * 8];
+    private int mSize;
+
+    /** An empty diff, e.g. to record the writes to a {@link CursorList} */
+    CursorDiff() {
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void dispatchUpdatesTo(Callback callback) {
+        for (int i = 0; i < mSize; i += 3) {
+            int first = mUpdates[i + 1];
+            int second = mUpdates[i + 2];
+            switch (mUpdates[i]) {
+                case INSERT:
+                    callback.onInserted(first, second);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(first, second);
+                    break;
+                case MOVE:
+                    callback.onMoved(first, second);
+                    break;
+                default:
+                    callback.onChanged(first, second);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Diff the rows of {@code oldCursor} and {@code newCursor}, whose keys have already been read.
+     * Kept rows are compared with {@code contentEquals}, or {@link Object#equals(Object)} if it's
+     * null. The positions of both cursors are restored afterwards.
+     */
+    static <T> CursorDiff compute(IterableCursor<T> oldCursor, IterableCursor<T> newCursor,
+            long[] oldKeys, long[] newKeys, CursorUtils.Equivalence<? super T> contentEquals) {
+        CursorDiff diff = new CursorDiff();
+        int[] oldIndexOfNew = diff.addStructuralUpdates(oldKeys, newKeys);
+        diff.findChanges(oldCursor, newCursor, oldIndexOfNew, contentEquals);
+        return diff;
+    }
+
+    /**
+     * Diff two sequences of row keys, e.g. ids which were read as each query was loaded. Contents
+     * can't be compared, so every kept row is reported as changed.
+     */
+    public static CursorDiff ofKeys(long[] oldKeys, long[] newKeys) {
+        CursorDiff diff = new CursorDiff();
+        int[] oldIndexOfNew = diff.addStructuralUpdates(oldKeys, newKeys);
+        for (int j = 0; j < oldIndexOfNew.length; j++) {
+            if (oldIndexOfNew[j] != -1) {
+                diff.add(CHANGE, j, 1);
+            }
+        }
+        return diff;
+    }
+
+    /** @return the old position of each new row, or -1 for new rows */
+    private int[] addStructuralUpdates(long[] oldKeys, long[] newKeys) {
+        int[] oldIndexOfNew = matchUniqueKeys(oldKeys, newKeys);
+        if (oldIndexOfNew == null) {
+            return compareSequences(oldKeys, newKeys);
+        }
+        moveKeyedRows(oldKeys.length, oldIndexOfNew);
+        return oldIndexOfNew;
+    }
+
+    /**
+     * @return the old position of each new row, or -1 for new rows, or null if the keys of either
+     * query aren't unique
+     */
+    private static int[] matchUniqueKeys(long[] oldKeys, long[] newKeys) {
+        LongIntMap oldPositions = new LongIntMap(oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldPositions.putIfAbsent(oldKeys[i], i) != -1) {
+                return null;
+            }
+        }
+        LongHashSet seen = new LongHashSet();
+        int[] oldIndexOfNew = new int[newKeys.length];
+        for (int j = 0; j < newKeys.length; j++) {
+            if (!seen.add(newKeys[j])) {
+                return null;
+            }
+            oldIndexOfNew[j] = oldPositions.get(newKeys[j]);
+        }
+        return oldIndexOfNew;
+    }
+
+    /**
+     * Remove the old rows which aren't kept, then insert the new rows and move the kept rows which
+     * aren't in the longest run that's already in order.
+     */
+    private void moveKeyedRows(int oldCount, int[] oldIndexOfNew) {
+        int newCount = oldIndexOfNew.length;
+        int[] newIndexOfOld = new int[oldCount];
+        Arrays.fill(newIndexOfOld, -1);
+        for (int j = 0; j < newCount; j++) {
+            if (oldIndexOfNew[j] != -1) {
+                newIndexOfOld[oldIndexOfNew[j]] = j;
+            }
+        }
+        // back to front, so that the positions of the rows before are unchanged
+        for (int i = oldCount - 1; i >= 0; i--) {
+            if (newIndexOfOld[i] == -1) {
+                add(REMOVE, i, 1);
+            }
+        }
+
+        // the kept rows in old order, as they are once the others are removed
+        int[] rows = new int[newCount];
+        int size = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (newIndexOfOld[i] != -1) {
+                rows[size++] = i;
+            }
+        }
+        boolean[] inOrder = longestIncreasingRun(rows, size, newIndexOfOld);
+
+        // Every row before j is in place relative to the others in place, so each row that isn't
+        // goes straight after row j - 1. So the order of every place a row is ever in is known up
+        // front: a slot for each kept row's old place, and one for each inserted or moved row's
+        // new place, straight after row j - 1's. A row's position is the occupied slots before it.
+        int[] oldSlot = new int[oldCount];
+        int[] newSlot = new int[newCount];
+        int slots = placeAfter(-1, oldIndexOfNew, inOrder, newSlot, 0);
+        for (int p = 0; p < size; p++) {
+            int old = rows[p];
+            oldSlot[old] = slots++;
+            if (inOrder[old]) {
+                slots = placeAfter(newIndexOfOld[old], oldIndexOfNew, inOrder, newSlot, slots);
+            }
+        }
+        SlotCounts occupied = new SlotCounts(slots);
+        for (int p = 0; p < size; p++) {
+            occupied.add(oldSlot[rows[p]], 1);
+        }
+
+        for (int j = 0; j < newCount; j++) {
+            int old = oldIndexOfNew[j];
+            if (old != -1 && inOrder[old]) {
+                continue;
+            }
+            if (old == -1) {
+                add(INSERT, occupied.countBefore(newSlot[j]), 1);
+            } else {
+                int from = occupied.countBefore(oldSlot[old]);
+                occupied.add(oldSlot[old], -1);
+                int to = occupied.countBefore(newSlot[j]);
+                if (from != to) {
+                    add(MOVE, from, to);
+                }
+            }
+            occupied.add(newSlot[j], 1);
+        }
+    }
+
+    /**
+     * Give the rows after new row {@code j} which aren't in order the next slots, up to the next
+     * row which is.
+     *
+     * @return the next free slot
+     */
+    private static int placeAfter(int j, int[] oldIndexOfNew, boolean[] inOrder, int[] newSlot,
+            int slot) {
+        for (int next = j + 1; next < oldIndexOfNew.length; next++) {
+            int old = oldIndexOfNew[next];
+            if (old != -1 && inOrder[old]) {
+                break;
+            }
+            newSlot[next] = slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * @return which old rows are in the longest run of {@code rows} whose new positions increase
+     */
+    private static boolean[] longestIncreasingRun(int[] rows, int size, int[] newIndexOfOld) {
+        // tails[l] is the index in rows of the smallest tail of a run of length l + 1
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int value = newIndexOfOld[rows[i]];
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (newIndexOfOld[rows[tails[middle]]] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = (low == 0) ? -1 : tails[low - 1];
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] inOrder = new boolean[newIndexOfOld.length];
+        for (int i = (length == 0) ? -1 : tails[length - 1]; i != -1; i = previous[i]) {
+            inOrder[rows[i]] = true;
+        }
+        return inOrder;
+    }
+
+    /**
+     * Myers' O((N + M) D) algorithm for the shortest sequence of inserts and removes.
+     *
+     * @return the old position of each new row, or -1 for new rows
+     */
+    private int[] compareSequences(long[] oldKeys, long[] newKeys) {
+        int n = oldKeys.length;
+        int m = newKeys.length;
+        int max = n + m;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // trace[d] is v[-d..d] after step d
+        int[][] trace = new int[max + 1][];
+        int traced = 0;
+        int steps = -1;
+        for (int d = 0; d <= max && steps == -1; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && oldKeys[x] == newKeys[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    steps = d;
+                    break;
+                }
+            }
+            traced += 2 * d + 1;
+            if (traced > MAX_TRACE) {
+                return replaceAll(n, m);
+            }
+            trace[d] = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, trace[d], 0, 2 * d + 1);
+        }
+
+        int[] oldIndexOfNew = new int[m];
+        Arrays.fill(oldIndexOfNew, -1);
+        int x = n;
+        int y = m;
+        for (int d = steps; d > 0; d--) {
+            int[] previous = trace[d - 1];
+            int k = x - y;
+            int previousK;
+            if (k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            int previousX = previous[previousK + d - 1];
+            int snakeStart = (previousK == k + 1) ? previousX : previousX + 1;
+            while (x > snakeStart) {
+                oldIndexOfNew[--y] = --x;
+            }
+            x = previousX;
+            y = previousX - previousK;
+        }
+        while (x > 0) {
+            oldIndexOfNew[--y] = --x;
+        }
+
+        boolean[] kept = new boolean[n];
+        for (int old : oldIndexOfNew) {
+            if (old != -1) {
+                kept[old] = true;
+            }
+        }
+        int i = 0;
+        int position = 0;
+        for (int j = 0; j < m || i < n; ) {
+            if (i < n && !kept[i]) {
+                add(REMOVE, position, 1);
+                i++;
+            } else if (j < m && oldIndexOfNew[j] == -1) {
+                add(INSERT, position++, 1);
+                j++;
+            } else {
+                position++;
+                i++;
+                j++;
+            }
+        }
+        return oldIndexOfNew;
+    }
+
+    private int[] replaceAll(int oldCount, int newCount) {
+        if (oldCount > 0) {
+            add(REMOVE, 0, oldCount);
+        }
+        if (newCount > 0) {
+            add(INSERT, 0, newCount);
+        }
+        int[] oldIndexOfNew = new int[newCount];
+        Arrays.fill(oldIndexOfNew, -1);
+        return oldIndexOfNew;
+    }
+
+    private <T> void findChanges(IterableCursor<T> oldCursor, IterableCursor<T> newCursor,
+            int[] oldIndexOfNew, CursorUtils.Equivalence<? super T> contentEquals) {
+        int oldPosition = oldCursor.getPosition();
+        int newPosition = newCursor.getPosition();
+        try {
+            for (int j = 0; j < oldIndexOfNew.length; j++) {
+                if (oldIndexOfNew[j] == -1) {
+                    continue;
+                }
+                oldCursor.moveToPosition(oldIndexOfNew[j]);
+                newCursor.moveToPosition(j);
+                T oldRow = oldCursor.peek();
+                T newRow = newCursor.peek();
+                boolean same = (contentEquals != null) ? contentEquals.equivalent(oldRow, newRow)
+                        : (oldRow == null ? newRow == null : oldRow.equals(newRow));
+                if (!same) {
+                    add(CHANGE, j, 1);
+                }
+            }
+        } finally {
+            oldCursor.moveToPosition(oldPosition);
+            newCursor.moveToPosition(newPosition);
+        }
+    }
+
+    /** Append an update, merging it with the previous one if they're adjacent. */
+    void inserted(int position, int count) {
+        add(INSERT, position, count);
+    }
+
+    void removed(int position, int count) {
+        add(REMOVE, position, count);
+    }
+
+    void changed(int position, int count) {
+        add(CHANGE, position, count);
+    }
+
+    private void add(int type, int first, int second) {
+        if (mSize > 0 && mUpdates[mSize - 3] == type && type != MOVE) {
+            int lastPosition = mUpdates[mSize - 2];
+            int lastCount = mUpdates[mSize - 1];
+            if (type == REMOVE && (first == lastPosition || first + second == lastPosition)) {
+                mUpdates[mSize - 2] = Math.min(first, lastPosition);
+                mUpdates[mSize - 1] = lastCount + second;
+                return;
+            } else if (type != REMOVE && first == lastPosition + lastCount) {
+                mUpdates[mSize - 1] = lastCount + second;
+                return;
+            }
+        }
+        if (mSize == mUpdates.length) {
+            int[] updates = new int[mSize * 2];
+            System.arraycopy(mUpdates, 0, updates, 0, mSize);
+            mUpdates = updates;
+        }
+        mUpdates[mSize++] = type;
+        mUpdates[mSize++] = first;
+        mUpdates[mSize++] = second;
+    }
+
+    /** The number of occupied slots before any slot, in O(log n) (a Fenwick tree). */
+    private static final class SlotCounts {
+
+        private final int[] mTree;
+
+        SlotCounts(int slots) {
+            mTree = new int[slots + 1];
+        }
+
+        void add(int slot, int delta) {
+            for (int i = slot + 1; i < mTree.length; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+
+        int countBefore(int slot) {
+            int count = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                count += mTree[i];
+            }
+            return count;
+        }
+    }
+}
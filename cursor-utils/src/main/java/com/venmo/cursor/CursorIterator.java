@@ -8,9 +8,20 @@ import java.util.Iterator;
 public class CursorIterator<T> implements Iterator<T> {
 
     private final IterableCursor<T> mCursor;
+    private final boolean mReuseRows;
+    private T mReused;
 
     public CursorIterator(IterableCursor<T> cursor) {
+        this(cursor, false);
+    }
+
+    /**
+     * @param reuseRows if true, rows are read with {@link CursorUtils#peekInto(IterableCursor,
+     * Object)} so that {@link #next()} may return the same instance each time.
+     */
+    public CursorIterator(IterableCursor<T> cursor, boolean reuseRows) {
         mCursor = cursor;
+        mReuseRows = reuseRows;
     }
 
     @Override
@@ -20,7 +31,12 @@ public class CursorIterator<T> implements Iterator<T> {
 
     @Override
     public T next() {
-        return mCursor.nextDocument();
+        if (!mReuseRows) {
+            return mCursor.nextDocument();
+        }
+        mReused = CursorUtils.peekInto(mCursor, mReused);
+        mCursor.moveToNext();
+        return mReused;
     }
 
     @Override
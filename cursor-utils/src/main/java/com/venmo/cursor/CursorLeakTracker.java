@@ -0,0 +1,152 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Opt-in detection of {@link IterableCursorWrapper}s, {@link IterableMergeCursor}s and {@link
+ * CursorList}s which are garbage collected without being closed. While enabled, each new cursor
+ * records where it was created, and a phantom reference to it holds on to the database cursor it
+ * wraps, if any. Once a cursor becomes unreachable while still open, that cursor is closed (which
+ * releases its {@link android.database.CursorWindow}) and the {@link Listener} is told where it
+ * was created. Wrapped cursors only refer back to their wrappers weakly, so that observing a
+ * wrapper doesn't keep it reachable.
+ * <p/>
+ * There is no background thread: leaks are reclaimed whenever a cursor is created while tracking
+ * is enabled, or on {@link #reclaim()}, on that thread. {@link IterableMergeCursor}s are closed by
+ * their own finalizer, which reports them as it does so.
+ */
+public final class CursorLeakTracker {
+
+    /** Told about each cursor which was garbage collected without being closed. */
+    public interface Listener {
+        /**
+         * @param allocationSite the stack trace of the leaked cursor's creation
+         */
+        void onLeak(Class<?> cursorClass, Throwable allocationSite);
+    }
+
+    private static final ReferenceQueue<Object> sQueue = new ReferenceQueue<Object>();
+    /** Keeps the references themselves reachable until their cursors are closed or reclaimed */
+    private static final Set<LeakReference> sOpen =
+            Collections.synchronizedSet(new HashSet<LeakReference>());
+    private static volatile Listener sListener;
+
+    private CursorLeakTracker() {
+        throw new UnsupportedOperationException("Non-instantiable class");
+    }
+
+    /**
+     * Track cursors which are created from now on, and report their leaks to {@code listener}.
+     * Recording each creation's stack trace isn't free, so this is meant for debug builds.
+     */
+    public static void enable(Listener listener) {
+        if (listener == null) {
+            throw new NullPointerException("Listener must be non-null");
+        }
+        sListener = listener;
+    }
+
+    /** Stop tracking new cursors. Cursors which are already tracked are still reclaimed. */
+    public static void disable() {
+        sListener = null;
+    }
+
+    public static boolean isEnabled() {
+        return sListener != null;
+    }
+
+    /**
+     * Close and report every tracked cursor which has been garbage collected without being
+     * closed.
+     *
+     * @return the number of leaked cursors
+     */
+    public static int reclaim() {
+        int leaks = 0;
+        Reference<?> reference;
+        while ((reference = sQueue.poll()) != null) {
+            LeakReference leak = (LeakReference) reference;
+            if (sOpen.remove(leak)) {
+                leak.closeResources();
+                report(leak);
+                leaks++;
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Start tracking {@code cursor}, if enabled.
+     *
+     * @param resources the cursors to close if {@code cursor} is leaked. They're held strongly, so
+     * they must not refer back to {@code cursor}, e.g. through the observers registered on them.
+     * @return the handle to pass to {@link #untrack(LeakReference)} when {@code cursor} is closed,
+     * or null if tracking is disabled
+     */
+    static LeakReference track(Cursor cursor, Cursor... resources) {
+        if (sListener == null) {
+            return null;
+        }
+        reclaim();
+        LeakReference reference = new LeakReference(cursor, resources);
+        sOpen.add(reference);
+        return reference;
+    }
+
+    /** {@code reference}'s cursor was closed, so it isn't a leak. */
+    static void untrack(LeakReference reference) {
+        if (reference != null) {
+            sOpen.remove(reference);
+            reference.clear();
+        }
+    }
+
+    /** {@code reference}'s cursor is being finalized while open, and is about to be closed. */
+    static void finalizedWhileOpen(LeakReference reference) {
+        if (reference != null && sOpen.remove(reference)) {
+            reference.clear();
+            report(reference);
+        }
+    }
+
+    private static void report(LeakReference leak) {
+        Listener listener = sListener;
+        if (listener != null) {
+            listener.onLeak(leak.mCursorClass, leak.mAllocationSite);
+        }
+    }
+
+    /** A phantom reference to a tracked cursor, which holds what it needs to clean up after it. */
+    static final class LeakReference extends PhantomReference<Object> {
+
+        private final Class<?> mCursorClass;
+        private final Throwable mAllocationSite;
+        private final Cursor[] mResources;
+
+        LeakReference(Cursor cursor, Cursor[] resources) {
+            super(cursor, sQueue);
+            mCursorClass = cursor.getClass();
+            mAllocationSite = new Throwable(mCursorClass.getName() + " was created here");
+            mResources = resources;
+        }
+
+        void closeResources() {
+            for (Cursor resource : mResources) {
+                if (resource != null) {
+                    try {
+                        resource.close();
+                    } catch (RuntimeException e) {
+                        // keep closing the rest, the leak is reported either way
+                    }
+                }
+            }
+        }
+    }
+}
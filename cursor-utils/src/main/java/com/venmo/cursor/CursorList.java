@@ -2,7 +2,9 @@ package com.venmo.cursor;
 
 import android.content.ContentResolver;
 import android.database.CharArrayBuffer;
+import android.database.ContentObservable;
 import android.database.ContentObserver;
+import android.database.DataSetObservable;
 import android.database.DataSetObserver;
 import android.net.Uri;
 import android.os.Bundle;
@@ -21,8 +23,15 @@ import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
  * combine one data set which is backed by a {@link List} with another which is a backed by a
  * {@link
  * android.database.Cursor} using a {@link com.venmo.cursor.IterableMergeCursor}.
+ * <p/>
+ * Writes through the {@link List} methods notify {@link DataSetObserver}s, {@link
+ * ContentObserver}s and {@link #addUpdateCallback(CursorDiff.Callback) update callbacks}, which
+ * are told which rows were inserted, removed and changed. Writes between {@link #beginBatch()} and
+ * {@link #endBatch()} are notified once, at the end of the batch. Notifications are delivered on
+ * the writing thread. Writes through {@link #iterator()}, {@link #listIterator()} and {@link
+ * #subList(int, int)} aren't observed.
  */
-public class CursorList<E> implements List<E>, IterableCursor<E> {
+public class CursorList<E> implements List<E>, IterableCursor<E>, CursorMetrics.Instrumented {
 
     private static final String _ID = "_id";
     private static final int _ID_INDEX = 0;
@@ -30,12 +39,27 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
     private List<E> mList;
     private int mPosition = 0;
 
+    private final long mCreatedAt = System.nanoTime();
+    private CursorMetrics mMetrics;
+    private final CursorLeakTracker.LeakReference mLeakReference = CursorLeakTracker.track(this);
+
+    private final DataSetObservable mDataSetObservable = new DataSetObservable();
+    private final ContentObservable mContentObservable = new ContentObservable();
+    private final List<CursorDiff.Callback> mUpdateCallbacks =
+            new ArrayList<CursorDiff.Callback>(0);
+    /** Whether anything was ever registered, so that unobserved writes aren't recorded */
+    private boolean mObserved;
+    private int mBatchDepth;
+    /** The writes which haven't been notified yet, or null if there are none */
+    private CursorDiff mPendingUpdates;
+
     /**
      * Create a {@link CursorList} with an empty-backed {@link List}. The list can, however, be
      * modified.
      */
     public CursorList() {
         mList = new ArrayList<E>();
+        CursorMetrics.opened(this);
     }
 
     /**
@@ -46,6 +70,7 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
      */
     public CursorList(int capacity) {
         mList = new ArrayList<E>(capacity);
+        CursorMetrics.opened(this);
     }
 
     /**
@@ -56,6 +81,7 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
             throw new NullPointerException("List parameter must be non-null");
         }
         mList = list;
+        CursorMetrics.opened(this);
     }
 
     /**
@@ -75,11 +101,125 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
         for (E e : cursor) {
             mList.add(e);
         }
+        CursorMetrics.rowsMaterialized(cursor, mList.size());
+        CursorMetrics.opened(this);
+    }
+
+    /**
+     * Report this cursor's {@link CursorMetrics} to {@code metrics} instead of the global
+     * listener, or to the global listener again if {@code metrics} is null.
+     */
+    public void setMetrics(CursorMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Override
+    public CursorMetrics getMetrics() {
+        return (mMetrics == null) ? CursorMetrics.getGlobal() : mMetrics;
+    }
+
+    /**
+     * Be told of the rows inserted, removed and changed by each write or batch of writes, e.g. to
+     * forward them to a RecyclerView adapter.
+     */
+    public void addUpdateCallback(CursorDiff.Callback callback) {
+        mObserved = true;
+        mUpdateCallbacks.add(callback);
+    }
+
+    public void removeUpdateCallback(CursorDiff.Callback callback) {
+        mUpdateCallbacks.remove(callback);
+    }
+
+    /**
+     * Hold back notifications until the matching {@link #endBatch()}, e.g. while adding rows one
+     * at a time. Batches may be nested.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * End the innermost batch. If it was the outermost one, notify all of its writes at once.
+     */
+    public void endBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("endBatch() without beginBatch()");
+        }
+        if (--mBatchDepth == 0) {
+            notifyUpdates();
+        }
+    }
+
+    /** Whether writes are recorded and notified as they happen. */
+    boolean reportsWrites() {
+        return mObserved;
+    }
+
+    private CursorDiff pendingUpdates() {
+        if (mPendingUpdates == null) {
+            mPendingUpdates = new CursorDiff();
+        }
+        return mPendingUpdates;
+    }
+
+    private void rowsInserted(int position, int count) {
+        if (count > 0 && reportsWrites()) {
+            pendingUpdates().inserted(position, count);
+            notifyUnlessBatched();
+        }
+    }
+
+    private void rowsRemoved(int position, int count) {
+        if (count > 0 && reportsWrites()) {
+            pendingUpdates().removed(position, count);
+            notifyUnlessBatched();
+        }
+    }
+
+    private void rowChanged(int position) {
+        if (reportsWrites()) {
+            pendingUpdates().changed(position, 1);
+            notifyUnlessBatched();
+        }
+    }
+
+    private void notifyUnlessBatched() {
+        if (mBatchDepth == 0) {
+            notifyUpdates();
+        }
+    }
+
+    private void notifyUpdates() {
+        CursorDiff updates = mPendingUpdates;
+        mPendingUpdates = null;
+        if (updates != null) {
+            notifyChanged(updates);
+        }
+    }
+
+    /**
+     * Tell the update callbacks of {@code updates} and the other observers that the rows
+     * changed.
+     */
+    @SuppressWarnings("deprecation")
+    void notifyChanged(CursorDiff updates) {
+        for (int i = 0; i < mUpdateCallbacks.size(); i++) {
+            updates.dispatchUpdatesTo(mUpdateCallbacks.get(i));
+        }
+        mDataSetObservable.notifyChanged();
+        // dispatchChange(boolean, Uri) is API 16
+        mContentObservable.dispatchChange(false);
+    }
+
+    /** The rows read by the cursor methods, which are the list itself. */
+    List<E> rows() {
+        return mList;
     }
 
     @Override
     public E peek() {
-        return mList.get(mPosition);
+        return rows().get(mPosition);
     }
 
     @Override
@@ -94,7 +234,7 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public int getCount() {
-        return mList.size();
+        return rows().size();
     }
 
     @Override
@@ -104,14 +244,16 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public boolean move(int offset) {
-        mPosition += offset;
-        return clampPosition();
+        return moveToPosition(mPosition + offset);
     }
 
     @Override
     public boolean moveToPosition(int position) {
+        int oldPosition = mPosition;
         mPosition = position;
-        return clampPosition();
+        boolean moved = clampPosition();
+        CursorMetrics.moved(this, oldPosition, mPosition);
+        return moved;
     }
 
     /**
@@ -123,8 +265,8 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
         if (mPosition < 0) {
             mPosition = -1;
             return false;
-        } else if (mPosition > mList.size()) { // TODO should this be >= instead of >
-            mPosition = mList.size();
+        } else if (mPosition > rows().size()) { // TODO should this be >= instead of >
+            mPosition = rows().size();
             return false;
         }
         return true;
@@ -132,14 +274,18 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public boolean moveToFirst() {
+        int oldPosition = mPosition;
         mPosition = 0;
-        return mList.isEmpty();
+        CursorMetrics.moved(this, oldPosition, mPosition);
+        return rows().isEmpty();
     }
 
     @Override
     public boolean moveToLast() {
-        mPosition = mList.size() - 1;
-        return mList.isEmpty();
+        int oldPosition = mPosition;
+        mPosition = rows().size() - 1;
+        CursorMetrics.moved(this, oldPosition, mPosition);
+        return rows().isEmpty();
     }
 
     @Override
@@ -159,7 +305,7 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public boolean isLast() {
-        return mPosition == (mList.size() - 1);
+        return mPosition == (rows().size() - 1);
     }
 
     @Override
@@ -169,7 +315,7 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public boolean isAfterLast() {
-        return mPosition >= mList.size();
+        return mPosition >= rows().size();
     }
 
     /**
@@ -287,16 +433,29 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
         // noop
     }
 
+    /**
+     * The rows are always current, so there's nothing to do. Returns true while the list is open,
+     * so that a {@link android.widget.CursorAdapter} which requeries on content changes keeps
+     * showing it after a write.
+     */
     @Deprecated
     @Override
     public boolean requery() {
-        // noop
-        return false;
+        return !isClosed();
     }
 
     @Override
     public void close() {
+        if (mList != null) {
+            CursorMetrics.closed(this, mCreatedAt);
+        }
+        CursorLeakTracker.untrack(mLeakReference);
+        boolean wasOpen = mList != null;
         mList = null;
+        mPendingUpdates = null;
+        if (wasOpen) {
+            mDataSetObservable.notifyInvalidated();
+        }
     }
 
     @Override
@@ -306,22 +465,24 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public void registerContentObserver(ContentObserver observer) {
-        // noop
+        mObserved = true;
+        mContentObservable.registerObserver(observer);
     }
 
     @Override
     public void unregisterContentObserver(ContentObserver observer) {
-        // noop
+        mContentObservable.unregisterObserver(observer);
     }
 
     @Override
     public void registerDataSetObserver(DataSetObserver observer) {
-        // noop
+        mObserved = true;
+        mDataSetObservable.registerObserver(observer);
     }
 
     @Override
     public void unregisterDataSetObserver(DataSetObserver observer) {
-        // noop
+        mDataSetObservable.unregisterObserver(observer);
     }
 
     @Override
@@ -352,26 +513,39 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
     @Override
     public void add(int location, E object) {
         mList.add(location, object);
+        rowsInserted(location, 1);
     }
 
     @Override
     public boolean add(E object) {
-        return mList.add(object);
+        boolean added = mList.add(object);
+        if (added) {
+            rowsInserted(mList.size() - 1, 1);
+        }
+        return added;
     }
 
     @Override
     public boolean addAll(int location, Collection<? extends E> collection) {
-        return mList.addAll(location, collection);
+        int size = mList.size();
+        boolean added = mList.addAll(location, collection);
+        rowsInserted(location, mList.size() - size);
+        return added;
     }
 
     @Override
     public boolean addAll(Collection<? extends E> collection) {
-        return mList.addAll(collection);
+        int size = mList.size();
+        boolean added = mList.addAll(collection);
+        rowsInserted(size, mList.size() - size);
+        return added;
     }
 
     @Override
     public void clear() {
+        int size = mList.size();
         mList.clear();
+        rowsRemoved(0, size);
     }
 
     @Override
@@ -421,27 +595,87 @@ public class CursorList<E> implements List<E>, IterableCursor<E> {
 
     @Override
     public E remove(int location) {
-        return mList.remove(location);
+        E removed = mList.remove(location);
+        rowsRemoved(location, 1);
+        return removed;
     }
 
     @Override
     public boolean remove(Object object) {
-        return mList.remove(object);
+        int location = mList.indexOf(object);
+        if (location == -1) {
+            return false;
+        }
+        mList.remove(location);
+        rowsRemoved(location, 1);
+        return true;
     }
 
     @Override
     public boolean removeAll(Collection<?> collection) {
-        return mList.removeAll(collection);
+        if (!reportsWrites()) {
+            return mList.removeAll(collection);
+        }
+        return removeWhere(collection, true);
     }
 
     @Override
     public boolean retainAll(Collection<?> collection) {
-        return mList.retainAll(collection);
+        if (!reportsWrites()) {
+            return mList.retainAll(collection);
+        }
+        return removeWhere(collection, false);
+    }
+
+    /**
+     * Remove the rows for which {@code collection.contains(row) == contained}, in one batch. The
+     * rows which are kept are copied back in one pass, rather than removing each row in turn.
+     */
+    private boolean removeWhere(Collection<?> collection, boolean contained) {
+        int size = mList.size();
+        List<E> kept = new ArrayList<E>(size);
+        // the first position and length of each run of removed rows, in the old positions
+        int[] runs = new int[8];
+        int runCount = 0;
+        for (int i = 0; i < size; i++) {
+            E row = mList.get(i);
+            if (collection.contains(row) != contained) {
+                kept.add(row);
+            } else if (runCount > 0 && runs[2 * runCount - 2] + runs[2 * runCount - 1] == i) {
+                runs[2 * runCount - 1]++;
+            } else {
+                if (2 * runCount == runs.length) {
+                    int[] grown = new int[runs.length * 2];
+                    System.arraycopy(runs, 0, grown, 0, runs.length);
+                    runs = grown;
+                }
+                runs[2 * runCount] = i;
+                runs[2 * runCount + 1] = 1;
+                runCount++;
+            }
+        }
+        if (runCount == 0) {
+            return false;
+        }
+        mList.clear();
+        mList.addAll(kept);
+        beginBatch();
+        try {
+            // back to front, so that each run's old position is still its position
+            for (int run = runCount - 1; run >= 0; run--) {
+                rowsRemoved(runs[2 * run], runs[2 * run + 1]);
+            }
+        } finally {
+            endBatch();
+        }
+        return true;
     }
 
     @Override
     public E set(int location, E object) {
-        return mList.set(location, object);
+        E old = mList.set(location, object);
+        rowChanged(location);
+        return old;
     }
 
     @Override
@@ -0,0 +1,123 @@
+package com.venmo.cursor;
+
+import android.database.Cursor;
+
+/**
+ * Receives measurements from the library's hot paths, for exporting to a dashboard. Override the
+ * callbacks of interest; the rest do nothing. Callbacks run synchronously on the thread that did
+ * the work (which may be a prefetching or consuming worker), so they should be cheap, e.g.
+ * incrementing a counter or a histogram bucket.
+ * <p/>
+ * Metrics are reported to the cursor's own listener if one was set with {@code setMetrics()} on
+ * {@link IterableCursorWrapper}, {@link IterableMergeCursor} or {@link CursorList}, and otherwise
+ * to the {@link #setGlobal(CursorMetrics) global} one. By default both are {@link #NONE}, in which
+ * case nothing is timed at all.
+ */
+public abstract class CursorMetrics {
+
+    /** Reports nothing. */
+    public static final CursorMetrics NONE = new CursorMetrics() {
+    };
+
+    private static volatile CursorMetrics sGlobal = NONE;
+
+    /** Report from every cursor which doesn't have its own listener, or {@link #NONE} to stop. */
+    public static void setGlobal(CursorMetrics metrics) {
+        if (metrics == null) {
+            throw new NullPointerException("Metrics must be non-null, use CursorMetrics.NONE");
+        }
+        sGlobal = metrics;
+    }
+
+    public static CursorMetrics getGlobal() {
+        return sGlobal;
+    }
+
+    /**
+     * A row was translated by {@link IterableCursor#peek()}, taking {@code nanos}. This is
+     * reported for rows read by iteration, {@link IterableCursor#nextDocument()}, {@link
+     * IterableCursor#previousDocument()} and the adapters.
+     */
+    public void onRowMapped(IterableCursor<?> cursor, long nanos) {
+    }
+
+    /** {@code rows} rows were copied out of {@code cursor} by a {@code consume*} method. */
+    public void onRowsMaterialized(Cursor cursor, int rows) {
+    }
+
+    /** {@code cursor} moved to {@code newPosition}. */
+    public void onMove(Cursor cursor, int oldPosition, int newPosition) {
+    }
+
+    /** A move of {@code cursor} had to switch to its child cursor at {@code childIndex}. */
+    public void onChildSwitch(IterableMergeCursor<?> cursor, int childIndex) {
+    }
+
+    /** A {@link RowPrefetcher} translated {@code rows} rows around {@code position}. */
+    public void onWindowFilled(IterableCursor<?> cursor, int position, int rows) {
+    }
+
+    /** {@code cursor} was created. Only reported to the global listener. */
+    public void onOpened(Cursor cursor) {
+    }
+
+    /** {@code cursor} was closed, {@code lifetimeNanos} after it was created. */
+    public void onClosed(Cursor cursor, long lifetimeNanos) {
+    }
+
+    /** Implemented by cursors which can have their own listener. */
+    interface Instrumented {
+        CursorMetrics getMetrics();
+    }
+
+    /** @return the listener for {@code cursor} */
+    static CursorMetrics of(Object cursor) {
+        if (cursor instanceof Instrumented) {
+            return ((Instrumented) cursor).getMetrics();
+        }
+        return sGlobal;
+    }
+
+    /**
+     * Calls {@link IterableCursor#peek()}, and reports how long it took if anyone is listening.
+     */
+    public static <T> T peek(IterableCursor<T> cursor) {
+        CursorMetrics metrics = of(cursor);
+        if (metrics == NONE) {
+            return cursor.peek();
+        }
+        long start = System.nanoTime();
+        T row = cursor.peek();
+        metrics.onRowMapped(cursor, System.nanoTime() - start);
+        return row;
+    }
+
+    static void opened(Cursor cursor) {
+        CursorMetrics metrics = sGlobal;
+        if (metrics != NONE) {
+            metrics.onOpened(cursor);
+        }
+    }
+
+    /** @param createdAt the {@link System#nanoTime()} when {@code cursor} was created */
+    static void closed(Cursor cursor, long createdAt) {
+        CursorMetrics metrics = of(cursor);
+        if (metrics != NONE) {
+            metrics.onClosed(cursor, System.nanoTime() - createdAt);
+        }
+    }
+
+    static void moved(Cursor cursor, int oldPosition, int newPosition) {
+        CursorMetrics metrics = of(cursor);
+        if (metrics != NONE) {
+            metrics.onMove(cursor, oldPosition, newPosition);
+        }
+    }
+
+    static void rowsMaterialized(Cursor cursor, int rows) {
+        CursorMetrics metrics = of(cursor);
+        if (metrics != NONE) {
+            metrics.onRowsMaterialized(cursor, rows);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.venmo.cursor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as the row type of a generated {@link IterableCursorWrapper}. The
+ * {@code cursor-utils-compiler} annotation processor generates a {@code
+ * <ClassName>$$IterableCursor} in the same package whose {@link IterableCursor#peek()} reads each
+ * {@link Column} by a column index that is resolved once per query, rather than once per row.
+ * <p/>
+ * Values are read through either a constructor whose parameters are all annotated with {@link
+ * Column}, or through non-private fields annotated with {@link Column} after calling the no-arg
+ * constructor. Both may be combined.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface CursorRow {
+}
@@ -0,0 +1,186 @@
+package com.venmo.cursor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@link Iterator} over a range of positions of a query which knows how many rows it has left
+ * and can be split in two, for dividing the rows between threads. It follows the contract of Java
+ * 8's {@code java.util.Spliterator}, which isn't available on Android, so that it can be adapted
+ * to one directly, and its {@link #characteristics()} use the same values.
+ * <p/>
+ * Splitting requires random access to the rows: either a {@link CursorList}, or a {@link
+ * CursorUtils.CursorFactory} so that each part reads from its own cursor. Any other cursor can't
+ * be read from several threads, so {@link #trySplit()} always returns null.
+ *
+ * @see CursorUtils#spliterator(IterableCursor)
+ * @see CursorUtils#spliterator(CursorUtils.CursorFactory)
+ */
+public abstract class CursorSpliterator<T> implements Iterator<T> {
+
+    /** The same as {@code java.util.Spliterator.ORDERED} */
+    public static final int ORDERED = 0x00000010;
+    /** The same as {@code java.util.Spliterator.SIZED} */
+    public static final int SIZED = 0x00000040;
+    /** The same as {@code java.util.Spliterator.SUBSIZED} */
+    public static final int SUBSIZED = 0x00004000;
+
+    private int mPosition;
+    private final int mEnd;
+
+    CursorSpliterator(int position, int end) {
+        mPosition = position;
+        mEnd = end;
+    }
+
+    /** The row at {@code position}, which is within this range. */
+    abstract T rowAt(int position);
+
+    /** @return the range {@code [from, to)} of the same rows, or null if this can't be split */
+    abstract CursorSpliterator<T> newRange(int from, int to);
+
+    /** The number of rows left. */
+    public int size() {
+        return mEnd - mPosition;
+    }
+
+    /** A combination of {@link #ORDERED}, {@link #SIZED} and {@link #SUBSIZED}. */
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+
+    /**
+     * Split off the first half of the rows that are left into a new {@link CursorSpliterator},
+     * leaving this one with the second half.
+     *
+     * @return the first half, or null if this can't be split
+     */
+    public CursorSpliterator<T> trySplit() {
+        int middle = (mPosition + mEnd) >>> 1;
+        if (middle <= mPosition) {
+            return null;
+        }
+        CursorSpliterator<T> prefix = newRange(mPosition, middle);
+        if (prefix != null) {
+            mPosition = middle;
+        }
+        return prefix;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return mPosition < mEnd;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T row = rowAt(mPosition++);
+        if (!hasNext()) {
+            onFinished();
+        }
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Cannot remove an object in a cursor");
+    }
+
+    /**
+     * Release any cursor held by this range. This happens once all of its rows have been read, so
+     * it's only needed when it's abandoned early.
+     */
+    public void close() {
+        onFinished();
+    }
+
+    void onFinished() {
+        // nothing to release
+    }
+
+    /** Reads a {@link List} (e.g. a {@link CursorList}) by index. */
+    static final class ListSpliterator<T> extends CursorSpliterator<T> {
+
+        private final List<T> mList;
+
+        ListSpliterator(List<T> list, int from, int to) {
+            super(from, to);
+            mList = list;
+        }
+
+        @Override
+        T rowAt(int position) {
+            return mList.get(position);
+        }
+
+        @Override
+        CursorSpliterator<T> newRange(int from, int to) {
+            return new ListSpliterator<T>(mList, from, to);
+        }
+    }
+
+    /** Moves a single cursor, which is not closed. */
+    static final class SingleCursorSpliterator<T> extends CursorSpliterator<T> {
+
+        private final IterableCursor<T> mCursor;
+
+        SingleCursorSpliterator(IterableCursor<T> cursor) {
+            super(0, cursor.getCount());
+            mCursor = cursor;
+        }
+
+        @Override
+        T rowAt(int position) {
+            mCursor.moveToPosition(position);
+            return mCursor.peek();
+        }
+
+        @Override
+        CursorSpliterator<T> newRange(int from, int to) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a cursor from the factory the first time a row is read, and closes it once the range
+     * is finished.
+     */
+    static final class FactorySpliterator<T> extends CursorSpliterator<T> {
+
+        private final CursorUtils.CursorFactory<T> mFactory;
+        private IterableCursor<T> mCursor;
+
+        FactorySpliterator(CursorUtils.CursorFactory<T> factory, IterableCursor<T> cursor,
+                int from, int to) {
+            super(from, to);
+            mFactory = factory;
+            mCursor = cursor;
+        }
+
+        @Override
+        T rowAt(int position) {
+            if (mCursor == null) {
+                mCursor = mFactory.newCursor();
+            }
+            mCursor.moveToPosition(position);
+            return mCursor.peek();
+        }
+
+        @Override
+        CursorSpliterator<T> newRange(int from, int to) {
+            return new FactorySpliterator<T>(mFactory, null, from, to);
+        }
+
+        @Override
+        void onFinished() {
+            if (mCursor != null) {
+                mCursor.close();
+                mCursor = null;
+            }
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.venmo.cursor;
 
+import android.database.Cursor;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class of default implementations for {@link IterableCursor} methods. If Android gets
@@ -15,6 +19,34 @@ public final class CursorUtils {
         throw new UnsupportedOperationException("Non-instantiable class");
     }
 
+    /** Decides whether a row is included, e.g. by {@link #filter(IterableCursor, Predicate)}. */
+    public interface Predicate<T> {
+        boolean apply(T t);
+    }
+
+    /** Transforms a row, e.g. for {@link #map(IterableCursor, Function)}. */
+    public interface Function<F, T> {
+        T apply(F f);
+    }
+
+    /**
+     * Opens a new cursor over the same query each time, e.g. for {@link
+     * #consumeToArrayList(CursorFactory, Executor, int)}. It may be called from any thread.
+     */
+    public interface CursorFactory<T> {
+        IterableCursor<T> newCursor();
+    }
+
+    /** Computes a {@code long} key of a row, e.g. for deduplication. */
+    public interface LongFunction<T> {
+        long apply(T t);
+    }
+
+    /** Decides whether two rows have the same contents, e.g. for {@link CursorDiff}. */
+    public interface Equivalence<T> {
+        boolean equivalent(T a, T b);
+    }
+
     /**
      * Add each item of this {@link android.database.Cursor} to the {@code collection} parameter.
      * Closes the cursor once completed.
@@ -27,9 +59,12 @@ public final class CursorUtils {
     public static <T, C extends Collection<T>> C consumeToCollection(IterableCursor<T> cursor,
             C collection) {
         try {
+            int rows = 0;
             for (T t : cursor) {
                 collection.add(t);
+                rows++;
             }
+            CursorMetrics.rowsMaterialized(cursor, rows);
         } finally {
             cursor.close();
         }
@@ -43,6 +78,20 @@ public final class CursorUtils {
         return consumeToCollection(cursor, new ArrayList<T>(cursor.getCount()));
     }
 
+    /**
+     * Returns an {@link java.util.ArrayList} of every row of the query opened by {@code factory},
+     * translating the rows on up to {@code parallelism} threads: the calling thread, and others
+     * from {@code executor}. Each thread opens its own cursor, and all of them are closed once
+     * completed. This is worth it when {@link IterableCursor#peek()} is expensive, e.g. when it
+     * parses a blob; reading the columns themselves may still be serialized by the database.
+     * <p/>
+     * Blocks until every row has been translated, and rethrows the first exception of any thread.
+     */
+    public static <T> ArrayList<T> consumeToArrayList(CursorFactory<T> factory, Executor executor,
+            int parallelism) {
+        return ParallelConsumer.consume(factory, executor, parallelism);
+    }
+
     /**
      * Returns an {@link java.util.LinkedList} of the {@link android.database.Cursor} and closes
      * it.
@@ -59,12 +108,99 @@ public final class CursorUtils {
         return consumeToCollection(cursor, new LinkedHashSet<T>(cursor.getCount()));
     }
 
+    /**
+     * Returns the values of {@code column} in every row of {@code cursor}, without translating
+     * the rows, and closes it. {@code null}s are read as {@code nullValue}.
+     *
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public static long[] consumeToLongArray(Cursor cursor, String column, long nullValue) {
+        return consumeToLongArray(cursor, getColumnIndexOrClose(cursor, column), nullValue);
+    }
+
+    /**
+     * Returns the values of the column at {@code columnIndex} in every row of {@code cursor},
+     * without translating the rows, and closes it. {@code null}s are read as {@code nullValue}.
+     */
+    public static long[] consumeToLongArray(Cursor cursor, int columnIndex, long nullValue) {
+        try {
+            long[] values = new long[cursor.getCount()];
+            cursor.moveToFirst();
+            for (int i = 0; i < values.length; i++, cursor.moveToNext()) {
+                values[i] = cursor.isNull(columnIndex) ? nullValue : cursor.getLong(columnIndex);
+            }
+            CursorMetrics.rowsMaterialized(cursor, values.length);
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Like {@link #consumeToLongArray(Cursor, String, long)}, for {@code int}s.
+     */
+    public static int[] consumeToIntArray(Cursor cursor, String column, int nullValue) {
+        return consumeToIntArray(cursor, getColumnIndexOrClose(cursor, column), nullValue);
+    }
+
+    /**
+     * Like {@link #consumeToLongArray(Cursor, int, long)}, for {@code int}s.
+     */
+    public static int[] consumeToIntArray(Cursor cursor, int columnIndex, int nullValue) {
+        try {
+            int[] values = new int[cursor.getCount()];
+            cursor.moveToFirst();
+            for (int i = 0; i < values.length; i++, cursor.moveToNext()) {
+                values[i] = cursor.isNull(columnIndex) ? nullValue : cursor.getInt(columnIndex);
+            }
+            CursorMetrics.rowsMaterialized(cursor, values.length);
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Like {@link #consumeToLongArray(Cursor, String, long)}, for {@code double}s. Use {@link
+     * Double#NaN} as {@code nullValue} to tell {@code null}s apart from every other value.
+     */
+    public static double[] consumeToDoubleArray(Cursor cursor, String column, double nullValue) {
+        return consumeToDoubleArray(cursor, getColumnIndexOrClose(cursor, column), nullValue);
+    }
+
+    /**
+     * Like {@link #consumeToLongArray(Cursor, int, long)}, for {@code double}s.
+     */
+    public static double[] consumeToDoubleArray(Cursor cursor, int columnIndex, double nullValue) {
+        try {
+            double[] values = new double[cursor.getCount()];
+            cursor.moveToFirst();
+            for (int i = 0; i < values.length; i++, cursor.moveToNext()) {
+                values[i] = cursor.isNull(columnIndex) ? nullValue : cursor.getDouble(columnIndex);
+            }
+            CursorMetrics.rowsMaterialized(cursor, values.length);
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static int getColumnIndexOrClose(Cursor cursor, String column) {
+        try {
+            return cursor.getColumnIndexOrThrow(column);
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
     /**
      * Returns a {@link IterableCursor} that preserves order of the initial cursor, but excludes
      * any object that is {@link T#equals(Object)} to any other item in {@code cursor}. {@code
      * cursor} will be closed on any {@link Exception}.
      *
      * @param cursor to filter for uniqueness
+     * @see #removeDuplicates(IterableCursor, String)
      */
     public static <T> IterableCursor<T> removeDuplicates(IterableCursor<T> cursor) {
         LinkedHashSet<T> linkedHashSet = new LinkedHashSet<T>();
@@ -80,14 +216,189 @@ public final class CursorUtils {
         return unique;
     }
 
+    /**
+     * Returns a view of {@code cursor} without the rows whose {@code keyColumn} has the same value
+     * as an earlier row. Unlike {@link #removeDuplicates(IterableCursor)}, rows are neither
+     * translated nor copied: only the keys seen so far are kept, in a primitive hash set, as the
+     * view moves forward. Rows whose key is {@code null} are always included.
+     * <p/>
+     * The view moves {@code cursor}, so don't use {@code cursor} directly while using the view.
+     * Closing the view closes {@code cursor}.
+     *
+     * @param keyColumn an integer column, such as {@code _id}
+     */
+    public static <T> IterableCursor<T> removeDuplicates(IterableCursor<T> cursor,
+            String keyColumn) {
+        return moveToFirst(new DistinctIterableCursor<T>(cursor, keyColumn));
+    }
+
+    /**
+     * Like {@link #removeDuplicates(IterableCursor, String)}, but with the key computed from each
+     * row, which requires translating every row once.
+     */
+    public static <T> IterableCursor<T> removeDuplicates(IterableCursor<T> cursor,
+            LongFunction<? super T> key) {
+        return moveToFirst(new DistinctIterableCursor<T>(cursor, key));
+    }
+
+    /**
+     * Computes the updates which turn the rows of {@code oldCursor} into those of {@code
+     * newCursor}, matching rows by the integer column {@code keyColumn} (e.g. {@code _id}), which
+     * is read without translating the rows. Rows in both are compared with {@code contentEquals},
+     * or {@link Object#equals(Object)} if it's null.
+     * <p/>
+     * This reads every row of both cursors, so it can take a while: call it on a background
+     * thread, and don't use either cursor elsewhere meanwhile. Neither cursor is closed, and their
+     * positions are restored.
+     *
+     * @see CursorDiff
+     */
+    public static <T> CursorDiff diff(IterableCursor<T> oldCursor, IterableCursor<T> newCursor,
+            String keyColumn, Equivalence<? super T> contentEquals) {
+        return CursorDiff.compute(oldCursor, newCursor, readKeys(oldCursor, keyColumn),
+                readKeys(newCursor, keyColumn), contentEquals);
+    }
+
+    /**
+     * Like {@link #diff(IterableCursor, IterableCursor, String, Equivalence)}, with the key of
+     * each row computed from it.
+     */
+    public static <T> CursorDiff diff(IterableCursor<T> oldCursor, IterableCursor<T> newCursor,
+            LongFunction<? super T> key, Equivalence<? super T> contentEquals) {
+        return CursorDiff.compute(oldCursor, newCursor, readKeys(oldCursor, key),
+                readKeys(newCursor, key), contentEquals);
+    }
+
+    private static long[] readKeys(Cursor cursor, String keyColumn) {
+        int column = cursor.getColumnIndexOrThrow(keyColumn);
+        int position = cursor.getPosition();
+        long[] keys = new long[cursor.getCount()];
+        for (int i = 0; i < keys.length && cursor.moveToPosition(i); i++) {
+            keys[i] = cursor.getLong(column);
+        }
+        cursor.moveToPosition(position);
+        return keys;
+    }
+
+    private static <T> long[] readKeys(IterableCursor<T> cursor, LongFunction<? super T> key) {
+        int position = cursor.getPosition();
+        long[] keys = new long[cursor.getCount()];
+        for (int i = 0; i < keys.length && cursor.moveToPosition(i); i++) {
+            keys[i] = key.apply(cursor.peek());
+        }
+        cursor.moveToPosition(position);
+        return keys;
+    }
+
+    /**
+     * Returns a {@link CursorSpliterator} over every row of {@code cursor}. If {@code cursor} is a
+     * {@link CursorList}, the spliterator reads it by index and can be split; otherwise it moves
+     * {@code cursor} and can't be split, since a cursor can only be used from one thread. A {@link
+     * ConcurrentCursorList} is read from a {@link ConcurrentCursorList#snapshot()}, so that writes
+     * during the traversal don't affect it. The cursor is not closed.
+     */
+    public static <T> CursorSpliterator<T> spliterator(IterableCursor<T> cursor) {
+        if (cursor instanceof ConcurrentCursorList) {
+            CursorList<T> snapshot = ((ConcurrentCursorList<T>) cursor).snapshot();
+            return new CursorSpliterator.ListSpliterator<T>(snapshot, 0, snapshot.size());
+        }
+        if (cursor instanceof CursorList) {
+            CursorList<T> list = (CursorList<T>) cursor;
+            return new CursorSpliterator.ListSpliterator<T>(list, 0, list.size());
+        }
+        return new CursorSpliterator.SingleCursorSpliterator<T>(cursor);
+    }
+
+    /**
+     * Returns a {@link CursorSpliterator} over every row of the query opened by {@code factory},
+     * which can be split so that each part reads from its own cursor on its own thread. Each
+     * cursor is opened when its part reads its first row and closed after its last one.
+     */
+    public static <T> CursorSpliterator<T> spliterator(CursorFactory<T> factory) {
+        IterableCursor<T> cursor = factory.newCursor();
+        int count;
+        try {
+            count = cursor.getCount();
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+        if (count == 0) {
+            cursor.close();
+            cursor = null;
+        }
+        return new CursorSpliterator.FactorySpliterator<T>(factory, cursor, 0, count);
+    }
+
+    /**
+     * Returns {@link ReusableRowCursor#peekInto(Object)} if {@code cursor} supports it, or else
+     * {@link IterableCursor#peek()}.
+     */
+    public static <T> T peekInto(IterableCursor<T> cursor, T reuse) {
+        if (cursor instanceof ReusableRowCursor) {
+            return ((ReusableRowCursor<T>) cursor).peekInto(reuse);
+        }
+        return cursor.peek();
+    }
+
+    /**
+     * Returns an {@link Iterable} over {@code cursor} that reads each row with {@link
+     * #peekInto(IterableCursor, Object)}, so a cursor which supports it allocates a single object
+     * for the whole iteration. Each item is only valid until the next call to {@link
+     * Iterator#next()}; copy anything that needs to be retained. The cursor is not closed.
+     */
+    public static <T> Iterable<T> reusingRows(final IterableCursor<T> cursor) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new CursorIterator<T>(cursor, true);
+            }
+        };
+    }
+
+    /**
+     * Returns a view of the rows of {@code cursor} which match {@code predicate}, without copying
+     * them. Rows are tested lazily as the view moves over them, and the positions of the matches
+     * are kept so that each row is only tested once. {@link android.database.Cursor#getCount()}
+     * tests all remaining rows.
+     * <p/>
+     * The view moves {@code cursor}, so don't use {@code cursor} directly while using the view.
+     * Closing the view closes {@code cursor}.
+     */
+    public static <T> IterableCursor<T> filter(IterableCursor<T> cursor,
+            final Predicate<? super T> predicate) {
+        return moveToFirst(new FilteredIterableCursor<T>(cursor) {
+            @Override
+            boolean matches(IterableCursor<T> source) {
+                return predicate.apply(source.peek());
+            }
+        });
+    }
+
+    /**
+     * Returns a view of {@code cursor} whose {@link IterableCursor#peek()} is {@code function}
+     * applied to the row of {@code cursor}. Nothing is transformed until it is peeked. Closing
+     * the view closes {@code cursor}.
+     */
+    public static <F, T> IterableCursor<T> map(IterableCursor<F> cursor,
+            Function<? super F, ? extends T> function) {
+        return new MappedIterableCursor<F, T>(cursor, function);
+    }
+
+    /** Like {@link IterableCursorWrapper}s, views start at the first row. */
+    private static <T> IterableCursor<T> moveToFirst(IterableCursor<T> cursor) {
+        cursor.moveToFirst();
+        return cursor;
+    }
+
     public static <T> T nextDocumentHelper(IterableCursor<T> cursor) {
-        T t = cursor.peek();
+        T t = CursorMetrics.peek(cursor);
         cursor.moveToNext();
         return t;
     }
 
     public static <T> T previousDocumentHelper(IterableCursor<T> cursor) {
         cursor.moveToPrevious();
-        return cursor.peek();
+        return CursorMetrics.peek(cursor);
     }
 }
@@ -0,0 +1,47 @@
+package com.venmo.cursor;
+
+/**
+ * A view of an {@link IterableCursor} which skips every row whose {@code long} key has already
+ * been seen. Only the keys are retained, in a {@link LongHashSet}.
+ *
+ * @see CursorUtils#removeDuplicates(IterableCursor, String)
+ * @see CursorUtils#removeDuplicates(IterableCursor, CursorUtils.LongFunction)
+ */
+class DistinctIterableCursor<T> extends FilteredIterableCursor<T> {
+
+    private final LongHashSet mSeen = new LongHashSet();
+    private final int mKeyColumn;
+    private final CursorUtils.LongFunction<? super T> mKeyFunction;
+
+    /** Read keys from {@code keyColumn}. Rows whose key is {@code null} are never duplicates. */
+    DistinctIterableCursor(IterableCursor<T> cursor, String keyColumn) {
+        // resolved before the view starts observing cursor, in case the column is missing
+        this(cursor, cursor.getColumnIndexOrThrow(keyColumn), null);
+    }
+
+    DistinctIterableCursor(IterableCursor<T> cursor,
+            CursorUtils.LongFunction<? super T> keyFunction) {
+        this(cursor, -1, keyFunction);
+    }
+
+    private DistinctIterableCursor(IterableCursor<T> cursor, int keyColumn,
+            CursorUtils.LongFunction<? super T> keyFunction) {
+        super(cursor);
+        mKeyColumn = keyColumn;
+        mKeyFunction = keyFunction;
+    }
+
+    @Override
+    boolean matches(IterableCursor<T> cursor) {
+        if (mKeyFunction != null) {
+            return mSeen.add(mKeyFunction.apply(cursor.peek()));
+        }
+        return cursor.isNull(mKeyColumn) || mSeen.add(cursor.getLong(mKeyColumn));
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        mSeen.clear();
+    }
+}
@@ -0,0 +1,207 @@
+package com.venmo.cursor;
+
+import android.database.CursorWrapper;
+import android.database.DataSetObserver;
+
+import java.util.Iterator;
+
+import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
+import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
+
+/**
+ * A view of the rows of an {@link IterableCursor} which {@link #matches(IterableCursor)}. Rows are
+ * only tested as the view is moved over them, in order and only once each: the positions of the
+ * matching rows are recorded in an {@code int[]}, so {@link #getCount()} is the only call that has
+ * to test every row.
+ * <p/>
+ * A new view is before its first row; the factories in {@link CursorUtils} move it to the first
+ * row, like every other {@link IterableCursor}.
+ *
+ * @see CursorUtils#filter(IterableCursor, CursorUtils.Predicate)
+ * @see CursorUtils#removeDuplicates(IterableCursor, String)
+ */
+abstract class FilteredIterableCursor<T> extends CursorWrapper implements ReusableRowCursor<T> {
+
+    private final IterableCursor<T> mIterableCursor;
+
+    /** The positions in {@link #mIterableCursor} of the first {@link #mSize} matching rows */
+    private int[] mPositions = new int[16];
+    private int mSize;
+    /** The next position in {@link #mIterableCursor} to test */
+    private int mScanned;
+    private boolean mExhausted;
+    private int mPosition = -1;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            reset();
+        }
+
+        @Override
+        public void onInvalidated() {
+            reset();
+        }
+    };
+
+    FilteredIterableCursor(IterableCursor<T> cursor) {
+        super(cursor);
+        mIterableCursor = cursor;
+        cursor.registerDataSetObserver(mObserver);
+    }
+
+    /**
+     * Whether the row at the current position of {@code cursor} is included. Rows are tested in
+     * order, starting over after {@link #reset()}.
+     */
+    abstract boolean matches(IterableCursor<T> cursor);
+
+    /** Forget every tested row, e.g. when the underlying cursor's data has changed. */
+    void reset() {
+        mSize = 0;
+        mScanned = 0;
+        mExhausted = false;
+        mPosition = -1;
+    }
+
+    /**
+     * Test rows until {@code position} has been found or there are no more rows.
+     *
+     * @return whether there is a matching row at {@code position}
+     */
+    private boolean hasRow(int position) {
+        if (position < 0) {
+            return false;
+        }
+        if (position < mSize || mExhausted) {
+            return position < mSize;
+        }
+        int restore = mIterableCursor.getPosition();
+        int count = mIterableCursor.getCount();
+        while (mSize <= position && mScanned < count) {
+            mIterableCursor.moveToPosition(mScanned);
+            if (matches(mIterableCursor)) {
+                if (mSize == mPositions.length) {
+                    int[] positions = new int[mSize * 2];
+                    System.arraycopy(mPositions, 0, positions, 0, mSize);
+                    mPositions = positions;
+                }
+                mPositions[mSize++] = mScanned;
+            }
+            mScanned++;
+        }
+        mExhausted = mScanned >= count;
+        mIterableCursor.moveToPosition(restore);
+        return position < mSize;
+    }
+
+    @Override
+    public T peek() {
+        return mIterableCursor.peek();
+    }
+
+    @Override
+    public T peekInto(T reuse) {
+        return CursorUtils.peekInto(mIterableCursor, reuse);
+    }
+
+    @Override
+    public T nextDocument() {
+        return nextDocumentHelper(this);
+    }
+
+    @Override
+    public T previousDocument() {
+        return previousDocumentHelper(this);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new CursorIterator<T>(this);
+    }
+
+    @Override
+    public int getCount() {
+        hasRow(Integer.MAX_VALUE - 1);
+        return mSize;
+    }
+
+    @Override
+    public int getPosition() {
+        return mPosition;
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(mPosition + offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        if (position < 0) {
+            mPosition = -1;
+            mIterableCursor.moveToPosition(-1);
+            return false;
+        }
+        if (!hasRow(position)) {
+            mPosition = mSize;
+            mIterableCursor.moveToPosition(mIterableCursor.getCount());
+            return false;
+        }
+        mPosition = position;
+        return mIterableCursor.moveToPosition(mPositions[position]);
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(getCount() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return move(1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return move(-1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        return mPosition == 0 && hasRow(0);
+    }
+
+    @Override
+    public boolean isLast() {
+        return hasRow(mPosition) && !hasRow(mPosition + 1);
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return mPosition < 0 || !hasRow(0);
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return !hasRow(0) || (mPosition >= 0 && !hasRow(mPosition));
+    }
+
+    @Deprecated
+    @Override
+    public boolean requery() {
+        reset();
+        return super.requery();
+    }
+
+    @Override
+    public void close() {
+        mIterableCursor.unregisterDataSetObserver(mObserver);
+        super.close();
+    }
+}
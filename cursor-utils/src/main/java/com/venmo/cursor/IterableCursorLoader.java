@@ -0,0 +1,136 @@
+package com.venmo.cursor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Opens {@link IterableCursor}s on an {@link Executor} and delivers them on the main thread ready
+ * to display: the query has run and the first window is filled (by {@link
+ * IterableCursor#getCount()}), and optionally the first screen of rows is already translated, so
+ * that none of that disk I/O happens while the UI thread draws the first frame.
+ * <p/>
+ * Each {@link #load(CursorUtils.CursorFactory, Callback)} supersedes the previous one: a cursor
+ * from a superseded or {@link #cancel() cancelled} load is closed instead of delivered. {@link
+ * #load(CursorUtils.CursorFactory, Callback)} and {@link #cancel()} must be called on the main
+ * thread.
+ */
+public class IterableCursorLoader<T> {
+
+    /** Receives the result of a load on the main thread. */
+    public interface Callback<T> {
+        /** The cursor now belongs to the callback, which must close it. */
+        void onLoaded(IterableCursor<T> cursor);
+
+        void onLoadFailed(RuntimeException e);
+    }
+
+    private final Executor mExecutor;
+    private final int mFirstScreenRows;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    /** Incremented on the main thread by every load and cancel */
+    private volatile int mGeneration;
+
+    /** A loader which delivers cursors without translating any of their rows. */
+    public IterableCursorLoader(Executor executor) {
+        this(executor, 0);
+    }
+
+    /**
+     * @param firstScreenRows the number of rows to translate before delivering a cursor. If
+     * positive, cursors are delivered as a {@link CachingIterableCursor} of that many rows.
+     */
+    public IterableCursorLoader(Executor executor, int firstScreenRows) {
+        if (firstScreenRows < 0) {
+            throw new IllegalArgumentException("firstScreenRows must not be negative");
+        }
+        mExecutor = executor;
+        mFirstScreenRows = firstScreenRows;
+    }
+
+    /**
+     * Open a cursor from {@code factory} on the executor, typically by querying and wrapping the
+     * result in an {@link IterableCursorWrapper} subclass, and deliver it to {@code callback}
+     * unless another load starts or this one is cancelled first.
+     */
+    public void load(final CursorUtils.CursorFactory<T> factory, final Callback<T> callback) {
+        final int generation = ++mGeneration;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                IterableCursor<T> cursor = null;
+                try {
+                    cursor = factory.newCursor();
+                    if (generation == mGeneration) {
+                        cursor = warm(cursor);
+                    }
+                } catch (RuntimeException e) {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                    deliverFailure(generation, callback, e);
+                    return;
+                }
+                if (generation == mGeneration) {
+                    deliver(generation, callback, cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+        });
+    }
+
+    /** Stop delivering the cursor of the current load, if any. */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    private IterableCursor<T> warm(IterableCursor<T> cursor) {
+        int count = cursor.getCount();
+        if (mFirstScreenRows == 0) {
+            return cursor;
+        }
+        CachingIterableCursor<T> cached = new CachingIterableCursor<T>(cursor, mFirstScreenRows);
+        int rows = Math.min(count, mFirstScreenRows);
+        for (int position = 0; position < rows && cached.moveToPosition(position); position++) {
+            cached.peek();
+        }
+        // start on the first row, like a cursor which isn't warmed
+        cached.moveToFirst();
+        CursorMetrics metrics = CursorMetrics.of(cached);
+        if (rows > 0 && metrics != CursorMetrics.NONE) {
+            metrics.onWindowFilled(cached, 0, rows);
+        }
+        return cached;
+    }
+
+    private void deliver(final int generation, final Callback<T> callback,
+            final IterableCursor<T> cursor) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation == mGeneration) {
+                    callback.onLoaded(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+        });
+    }
+
+    private void deliverFailure(final int generation, final Callback<T> callback,
+            final RuntimeException e) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation == mGeneration) {
+                    callback.onLoadFailed(e);
+                }
+            }
+        });
+    }
+}
@@ -1,17 +1,49 @@
 package com.venmo.cursor;
 
+import android.database.CharArrayBuffer;
+import android.database.ContentObservable;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.database.CursorWrapper;
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
 
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
 import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
 
-public abstract class IterableCursorWrapper<T> extends CursorWrapper implements IterableCursor<T> {
+public abstract class IterableCursorWrapper<T> extends CursorWrapper
+        implements ReusableRowCursor<T>, CursorMetrics.Instrumented {
 
     private static final int SQLITE_TRUE = 1;
     private static final int SQLITE_FALSE = 0;
+    private static final int COLUMN_MISSING = -1;
+
+    /**
+     * Column indices for the named getters, resolved once per result schema. Missing columns are
+     * cached as {@link #COLUMN_MISSING} so that the default value is returned without another
+     * lookup.
+     */
+    private final Map<String, Integer> mColumnIndices = new HashMap<String, Integer>();
+
+    private final long mCreatedAt = System.nanoTime();
+    private CursorMetrics mMetrics;
+    private final CursorLeakTracker.LeakReference mLeakReference;
+    /**
+     * Observers are kept here rather than by the wrapped cursor, which only holds weak forwarders,
+     * so that a wrapper that's observed (e.g. by a {@link CachingIterableCursor} or an adapter)
+     * doesn't stay reachable through the cursor it wraps, which {@link CursorLeakTracker} holds.
+     */
+    private final DataSetObservable mDataSetObservable = new DataSetObservable();
+    private final ContentObservable mContentObservable = new ContentObservable();
+    private DataSetForwarder mDataSetForwarder;
+    private ContentForwarder mContentForwarder;
+    /** Null unless {@link #trackColumnUsage()} was called */
+    private ColumnUsage mColumnUsage;
 
     /**
      * Convenience class to create a {@link IterableCursor} backed by the {@link Cursor} {@code
@@ -21,9 +53,52 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      */
     public IterableCursorWrapper(Cursor cursor) {
         super(cursor);
+        CursorMetrics.opened(this);
+        // an IterableCursor is tracked itself, and may keep its observers, so it isn't held
+        mLeakReference = (cursor instanceof IterableCursor) ? CursorLeakTracker.track(this)
+                : CursorLeakTracker.track(this, cursor);
         moveToFirst();
     }
 
+    /**
+     * Report this cursor's {@link CursorMetrics} to {@code metrics} instead of the global
+     * listener, or to the global listener again if {@code metrics} is null.
+     */
+    public void setMetrics(CursorMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Override
+    public CursorMetrics getMetrics() {
+        return (mMetrics == null) ? CursorMetrics.getGlobal() : mMetrics;
+    }
+
+    /**
+     * Start recording which columns are read, through the named and indexed getters alike, e.g.
+     * to find a narrower projection for the query. Reads are recorded by column index, for the
+     * columns of the cursor now.
+     *
+     * @return the usage, which is updated by every later read
+     */
+    public ColumnUsage trackColumnUsage() {
+        mColumnUsage = new ColumnUsage(getColumnNames());
+        return mColumnUsage;
+    }
+
+    /** The usage since {@link #trackColumnUsage()}, or null if it was never called. */
+    public ColumnUsage getColumnUsage() {
+        return mColumnUsage;
+    }
+
+    /**
+     * Returns {@link #peek()}. Override this to fill in {@code reuse} when it is non-null, for
+     * allocation-free iteration with {@link CursorUtils#reusingRows(IterableCursor)}.
+     */
+    @Override
+    public T peekInto(T reuse) {
+        return peek();
+    }
+
     @Override
     public T nextDocument() {
         return nextDocumentHelper(this);
@@ -45,6 +120,105 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
         return new CursorIterator<T>(this);
     }
 
+    @Override
+    public void close() {
+        if (!isClosed()) {
+            CursorMetrics.closed(this, mCreatedAt);
+        }
+        CursorLeakTracker.untrack(mLeakReference);
+        super.close();
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        if (mDataSetForwarder == null) {
+            mDataSetForwarder = new DataSetForwarder(this);
+            super.registerDataSetObserver(mDataSetForwarder);
+        }
+        mDataSetObservable.registerObserver(observer);
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        mDataSetObservable.unregisterObserver(observer);
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+        if (mContentForwarder == null) {
+            mContentForwarder = new ContentForwarder(this);
+            super.registerContentObserver(mContentForwarder);
+        }
+        mContentObservable.registerObserver(observer);
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+        mContentObservable.unregisterObserver(observer);
+    }
+
+    @Override
+    public boolean move(int offset) {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.move(offset);
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.move(offset));
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.moveToPosition(position);
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.moveToPosition(position));
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.moveToFirst();
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.moveToFirst());
+    }
+
+    @Override
+    public boolean moveToLast() {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.moveToLast();
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.moveToLast());
+    }
+
+    @Override
+    public boolean moveToNext() {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.moveToNext();
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.moveToNext());
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        if (getMetrics() == CursorMetrics.NONE) {
+            return super.moveToPrevious();
+        }
+        int oldPosition = getPosition();
+        return reportMove(oldPosition, super.moveToPrevious());
+    }
+
+    /** Report a successful move to {@link CursorMetrics}, like {@code onMove()} of a cursor. */
+    private boolean reportMove(int oldPosition, boolean moved) {
+        if (moved) {
+            CursorMetrics.moved(this, oldPosition, getPosition());
+        }
+        return moved;
+    }
+
     /**
      * Booleans in SQLite are handled as {@code int}s. Use this as a convenience to retrieve a
      * boolean from a column.
@@ -68,8 +242,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public String getString(String columnName, String defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getString(index);
         } else {
             return defaultValue;
@@ -88,8 +262,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public long getLong(String columnName, long defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getLong(index);
         } else {
             return defaultValue;
@@ -108,8 +282,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public int getInteger(String columnName, int defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getInt(index);
         } else {
             return defaultValue;
@@ -128,8 +302,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public double getDouble(String columnName, double defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getDouble(index);
         } else {
             return defaultValue;
@@ -148,8 +322,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public byte[] getBlob(String columnName, byte[] defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getBlob(index);
         } else {
             return defaultValue;
@@ -168,8 +342,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public float getFloat(String columnName, float defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getFloat(index);
         } else {
             return defaultValue;
@@ -188,8 +362,8 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
      * exist for the cursor, return {@code defaultValue}.
      */
     public short getShort(String columnName, short defaultValue) {
-        int index = getColumnIndex(columnName);
-        if (isValidIndex(index)) {
+        int index = getCachedColumnIndex(columnName);
+        if (index != COLUMN_MISSING) {
             return getShort(index);
         } else {
             return defaultValue;
@@ -203,8 +377,286 @@ public abstract class IterableCursorWrapper<T> extends CursorWrapper implements
         return getShort(columnName, defaultValue);
     }
 
+    /**
+     * Read the values of {@code columnName} from up to {@code count} rows, starting at {@code
+     * fromPosition}, into {@code dst} starting at {@code offset}. This is cheaper than reading
+     * each row with {@link #getLong(String, long)}, since the column is only looked up once. The
+     * cursor's position is restored afterwards.
+     *
+     * @return the number of values read, which is less than {@code count} if the cursor ends first
+     * @throws IllegalArgumentException if the column does not exist
+     */
+    public int readColumn(String columnName, long[] dst, int offset, int fromPosition, int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getLong(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code int}s.
+     */
+    public int readColumn(String columnName, int[] dst, int offset, int fromPosition, int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getInt(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code short}s.
+     */
+    public int readColumn(String columnName, short[] dst, int offset, int fromPosition, int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getShort(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code double}s.
+     */
+    public int readColumn(String columnName, double[] dst, int offset, int fromPosition,
+            int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getDouble(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code float}s.
+     */
+    public int readColumn(String columnName, float[] dst, int offset, int fromPosition, int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getFloat(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code boolean}s.
+     */
+    public int readColumn(String columnName, boolean[] dst, int offset, int fromPosition,
+            int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getInt(index) == SQLITE_TRUE;
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    /**
+     * Like {@link #readColumn(String, long[], int, int, int)}, for {@code String}s.
+     */
+    public int readColumn(String columnName, String[] dst, int offset, int fromPosition,
+            int count) {
+        int index = getBulkColumnIndex(columnName, dst.length, offset, count);
+        int position = getPosition();
+        int read = 0;
+        try {
+            while (read < count && moveToPosition(fromPosition + read)) {
+                dst[offset + read++] = getString(index);
+            }
+        } finally {
+            moveToPosition(position);
+        }
+        return read;
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getBlob(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getString(columnIndex);
+    }
+
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+        recordRead(columnIndex);
+        super.copyStringToBuffer(columnIndex, buffer);
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getShort(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getInt(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getLong(columnIndex);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getFloat(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        recordRead(columnIndex);
+        return super.getDouble(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        recordRead(columnIndex);
+        return super.isNull(columnIndex);
+    }
+
+    /**
+     * Clears the cached column indices, since the requeried cursor may have a different schema.
+     */
+    @Deprecated
+    @Override
+    public boolean requery() {
+        mColumnIndices.clear();
+        return super.requery();
+    }
+
+    /**
+     * Resolve {@code columnName} to its index, or {@link #COLUMN_MISSING} if it is not part of
+     * this cursor. Lookups are cached until the next {@link #requery()}.
+     */
+    private int getCachedColumnIndex(String columnName) {
+        Integer cached = mColumnIndices.get(columnName);
+        if (cached != null) {
+            return cached;
+        }
+        int index = getColumnIndex(columnName);
+        if (!isValidIndex(index)) {
+            index = COLUMN_MISSING;
+        }
+        mColumnIndices.put(columnName, index);
+        return index;
+    }
+
+    private int getBulkColumnIndex(String columnName, int length, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > length - count) {
+            throw new IndexOutOfBoundsException("Can't read " + count + " values at " + offset
+                    + " into an array of length " + length);
+        }
+        int index = getCachedColumnIndex(columnName);
+        if (index == COLUMN_MISSING) {
+            throw new IllegalArgumentException("Column '" + columnName + "' does not exist");
+        }
+        return index;
+    }
+
+    private void recordRead(int columnIndex) {
+        if (mColumnUsage != null) {
+            mColumnUsage.read(columnIndex);
+        }
+    }
+
     private boolean isValidIndex(int index) {
         return index >= 0 && index < getColumnCount();
     }
 
+    /** Passes the wrapped cursor's notifications on to the wrapper's observers, while it exists. */
+    private static final class DataSetForwarder extends DataSetObserver {
+
+        private final WeakReference<IterableCursorWrapper<?>> mWrapper;
+
+        DataSetForwarder(IterableCursorWrapper<?> wrapper) {
+            mWrapper = new WeakReference<IterableCursorWrapper<?>>(wrapper);
+        }
+
+        @Override
+        public void onChanged() {
+            IterableCursorWrapper<?> wrapper = mWrapper.get();
+            if (wrapper != null) {
+                wrapper.mDataSetObservable.notifyChanged();
+            }
+        }
+
+        @Override
+        public void onInvalidated() {
+            IterableCursorWrapper<?> wrapper = mWrapper.get();
+            if (wrapper != null) {
+                wrapper.mDataSetObservable.notifyInvalidated();
+            }
+        }
+    }
+
+    private static final class ContentForwarder extends ContentObserver {
+
+        private final WeakReference<IterableCursorWrapper<?>> mWrapper;
+
+        ContentForwarder(IterableCursorWrapper<?> wrapper) {
+            super(null);
+            mWrapper = new WeakReference<IterableCursorWrapper<?>>(wrapper);
+        }
+
+        /** Each of the wrapper's observers decides for itself. */
+        @Override
+        public boolean deliverSelfNotifications() {
+            return true;
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void onChange(boolean selfChange) {
+            IterableCursorWrapper<?> wrapper = mWrapper.get();
+            if (wrapper != null) {
+                // dispatchChange(boolean, Uri) is API 16
+                wrapper.mContentObservable.dispatchChange(selfChange);
+            }
+        }
+    }
 }
@@ -1,16 +1,51 @@
 package com.venmo.cursor;
 
+import android.annotation.TargetApi;
+import android.database.DataSetObserver;
 import android.database.MergeCursor;
+import android.os.Build.VERSION_CODES;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
 import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
 
-public class IterableMergeCursor<T> extends MergeCursor implements IterableCursor<T> {
+/**
+ * An {@link IterableCursor} which concatenates its children, in order. Child counts are cached, so
+ * that finding the child of a position is a binary search (or nothing at all, if the position is
+ * still within the current child). The cache is rebuilt when a child notifies its {@link
+ * DataSetObserver}s or on {@link #requery()}; call {@link #requery()} after changing a child which
+ * does not notify its observers.
+ */
+public class IterableMergeCursor<T> extends MergeCursor
+        implements ReusableRowCursor<T>, CursorMetrics.Instrumented {
 
     private final IterableCursor<T>[] mCursors;
     private IterableCursor<T> mCurrent;
+    private int mCurrentIndex = -1;
+
+    /**
+     * {@code mOffsets[i]} is the merged position of the first row of {@code mCursors[i]}, and the
+     * last element is the total count. Null when it needs to be rebuilt.
+     */
+    private int[] mOffsets;
+
+    private final long mCreatedAt = System.nanoTime();
+    private CursorMetrics mMetrics;
+    private final CursorLeakTracker.LeakReference mLeakReference;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            invalidateOffsets();
+        }
+
+        @Override
+        public void onInvalidated() {
+            invalidateOffsets();
+        }
+    };
 
     public IterableMergeCursor(IterableCursor<T> cursor) {
         this(asArray(cursor));
@@ -42,9 +77,33 @@ public class IterableMergeCursor<T> extends MergeCursor implements IterableCurso
     public IterableMergeCursor(IterableCursor<T>... cursors) {
         super(cursors);
         mCursors = cursors;
+        for (IterableCursor<T> cursor : cursors) {
+            if (cursor != null) {
+                if (mCurrent == null) {
+                    mCurrent = cursor;
+                }
+                cursor.registerDataSetObserver(mObserver);
+            }
+        }
+        CursorMetrics.opened(this);
+        // the children refer back to mObserver, and finalize() closes them anyway
+        mLeakReference = CursorLeakTracker.track(this);
         moveToFirst();
     }
 
+    /**
+     * Report this cursor's {@link CursorMetrics} to {@code metrics} instead of the global
+     * listener, or to the global listener again if {@code metrics} is null.
+     */
+    public void setMetrics(CursorMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Override
+    public CursorMetrics getMetrics() {
+        return (mMetrics == null) ? CursorMetrics.getGlobal() : mMetrics;
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> IterableCursor<T>[] asArray(IterableCursor<T> cursor) {
         return (IterableCursor<T>[]) new IterableCursor[]{cursor};
@@ -55,20 +114,151 @@ public class IterableMergeCursor<T> extends MergeCursor implements IterableCurso
         return (IterableCursor<T>[]) cursor;
     }
 
+    @Override
+    public int getCount() {
+        int[] offsets = getOffsets();
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * Moves the child cursor that contains {@code newPosition}. This does not defer to {@link
+     * MergeCursor#onMove(int, int)}, which iterates over every child; the column accessors below
+     * read from {@link #mCurrent} instead.
+     */
     @Override
     public boolean onMove(int oldPosition, int newPosition) {
-        int newPositionCopy = newPosition;
-        for (IterableCursor<T> cursor : mCursors) {
-            if (cursor != null) {
-                if (newPositionCopy < cursor.getCount()) {
-                    mCurrent = cursor;
-                    break;
-                } else {
-                    newPositionCopy -= cursor.getCount();
-                }
+        int[] offsets = getOffsets();
+        CursorMetrics metrics = getMetrics();
+        if (metrics != CursorMetrics.NONE) {
+            metrics.onMove(this, oldPosition, newPosition);
+        }
+        if (mCurrentIndex == -1 || newPosition < offsets[mCurrentIndex]
+                || newPosition >= offsets[mCurrentIndex + 1]) {
+            mCurrentIndex = findCursorIndex(offsets, newPosition);
+            if (mCurrentIndex == -1) {
+                return false;
+            }
+            mCurrent = mCursors[mCurrentIndex];
+            if (metrics != CursorMetrics.NONE) {
+                metrics.onChildSwitch(this, mCurrentIndex);
+            }
+        }
+        return mCurrent.moveToPosition(newPosition - offsets[mCurrentIndex]);
+    }
+
+    /**
+     * @return the index of the cursor whose rows include {@code position}, or -1 if none do.
+     */
+    private static int findCursorIndex(int[] offsets, int position) {
+        if (position < 0 || position >= offsets[offsets.length - 1]) {
+            return -1;
+        }
+        // find the last offset <= position. Empty (and null) cursors share their offset with the
+        // next cursor, so skip ahead to the last cursor with that offset
+        int index = Arrays.binarySearch(offsets, position);
+        if (index < 0) {
+            return -index - 2;
+        }
+        while (offsets[index + 1] == position) {
+            index++;
+        }
+        return index;
+    }
+
+    private int[] getOffsets() {
+        if (mOffsets == null) {
+            int[] offsets = new int[mCursors.length + 1];
+            for (int i = 0; i < mCursors.length; i++) {
+                int count = (mCursors[i] == null) ? 0 : mCursors[i].getCount();
+                offsets[i + 1] = offsets[i] + count;
             }
+            mOffsets = offsets;
+        }
+        return mOffsets;
+    }
+
+    private void invalidateOffsets() {
+        mOffsets = null;
+        mCurrentIndex = -1;
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed()) {
+            CursorMetrics.closed(this, mCreatedAt);
+        }
+        CursorLeakTracker.untrack(mLeakReference);
+        super.close();
+    }
+
+    /** {@link android.database.AbstractCursor} closes leaked cursors as they're finalized. */
+    @Override
+    protected void finalize() {
+        if (!isClosed()) {
+            CursorLeakTracker.finalizedWhileOpen(mLeakReference);
+        }
+        super.finalize();
+    }
+
+    @Deprecated
+    @Override
+    public boolean requery() {
+        invalidateOffsets();
+        return super.requery();
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        if (mCurrent == null) {
+            return new String[0];
         }
-        return super.onMove(oldPosition, newPosition);
+        return mCurrent.getColumnNames();
+    }
+
+    @Override
+    public String getString(int column) {
+        return mCurrent.getString(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return mCurrent.getShort(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return mCurrent.getInt(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return mCurrent.getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return mCurrent.getFloat(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return mCurrent.getDouble(column);
+    }
+
+    @TargetApi(VERSION_CODES.HONEYCOMB)
+    @Override
+    public int getType(int column) {
+        return mCurrent.getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return mCurrent.isNull(column);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return mCurrent.getBlob(column);
     }
 
     @Override
@@ -76,6 +266,11 @@ public class IterableMergeCursor<T> extends MergeCursor implements IterableCurso
         return mCurrent.peek();
     }
 
+    @Override
+    public T peekInto(T reuse) {
+        return CursorUtils.peekInto(mCurrent, reuse);
+    }
+
     @Override
     public T nextDocument() {
         return nextDocumentHelper(this);
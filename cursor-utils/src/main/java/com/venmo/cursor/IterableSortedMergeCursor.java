@@ -0,0 +1,362 @@
+package com.venmo.cursor;
+
+import android.annotation.TargetApi;
+import android.database.AbstractCursor;
+import android.database.DataSetObserver;
+import android.os.Build.VERSION_CODES;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
+import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
+
+/**
+ * An {@link IterableCursor} which interleaves children that are each already sorted, so that the
+ * result is sorted too. Rows are ordered either by a {@link Comparator} of the rows, or by an
+ * integer key column (e.g. a timestamp), which doesn't require translating any row; equal rows
+ * keep the order of their children.
+ * <p/>
+ * Nothing is merged up front. The children's next rows are kept in a min-heap, and the child and
+ * position of each merged row is recorded as the cursor moves forward, so moving to any row that
+ * has been merged already is constant time, and merging {@code n} rows from {@code k} children is
+ * {@code O(n log k)}. The merge starts over when a child notifies its {@link DataSetObserver}s or
+ * on {@link #requery()}.
+ *
+ * @see IterableMergeCursor
+ */
+@TargetApi(VERSION_CODES.HONEYCOMB)
+public class IterableSortedMergeCursor<T> extends AbstractCursor
+        implements ReusableRowCursor<T> {
+
+    private final IterableCursor<T>[] mCursors;
+    private final Comparator<? super T> mComparator;
+    private final String mKeyColumn;
+    private IterableCursor<T> mCurrent;
+
+    /**
+     * The child and position of each merged row, as {@code (child << 32) | position}, for the
+     * first {@link #mMerged} rows.
+     */
+    private long[] mRows = new long[16];
+    private int mMerged;
+
+    // the next unmerged row of each child, and a heap of the children which have one
+    private int[] mHeap;
+    private int mHeapSize;
+    private int[] mNextPositions;
+    private Object[] mNextRows;
+    private long[] mNextKeys;
+    private int[] mKeyColumns;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            reset();
+        }
+
+        @Override
+        public void onInvalidated() {
+            reset();
+        }
+    };
+
+    /**
+     * Merge {@code cursors}, which are each sorted by {@code comparator}.
+     */
+    @SuppressWarnings("unchecked")
+    public IterableSortedMergeCursor(Comparator<? super T> comparator,
+            IterableCursor<T>... cursors) {
+        this(comparator, null, cursors);
+    }
+
+    /**
+     * Merge {@code cursors}, which are each sorted in ascending order of the integer column {@code
+     * keyColumn}. Keys are read with {@link android.database.Cursor#getLong(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    public IterableSortedMergeCursor(String keyColumn, IterableCursor<T>... cursors) {
+        this(null, keyColumn, cursors);
+    }
+
+    private IterableSortedMergeCursor(Comparator<? super T> comparator, String keyColumn,
+            IterableCursor<T>[] cursors) {
+        if (comparator == null && keyColumn == null) {
+            throw new NullPointerException("Comparator or key column must be non-null");
+        }
+        mComparator = comparator;
+        mKeyColumn = keyColumn;
+        mCursors = cursors;
+        for (IterableCursor<T> cursor : cursors) {
+            if (cursor != null) {
+                cursor.registerDataSetObserver(mObserver);
+            }
+        }
+        moveToFirst();
+    }
+
+    private void reset() {
+        mMerged = 0;
+        mHeap = null;
+        mCurrent = null;
+        mPos = -1;
+    }
+
+    @Override
+    public int getCount() {
+        int count = 0;
+        for (IterableCursor<T> cursor : mCursors) {
+            if (cursor != null) {
+                count += cursor.getCount();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        mergeThrough(newPosition);
+        if (newPosition >= mMerged) {
+            mCurrent = null;
+            return false;
+        }
+        long row = mRows[newPosition];
+        mCurrent = mCursors[(int) (row >>> 32)];
+        return mCurrent.moveToPosition((int) row);
+    }
+
+    /** Merge rows until {@code position} has been merged or every child is exhausted. */
+    private void mergeThrough(int position) {
+        if (mHeap == null) {
+            initHeap();
+        }
+        while (mMerged <= position && mHeapSize > 0) {
+            int child = mHeap[0];
+            if (mMerged == mRows.length) {
+                long[] rows = new long[mMerged * 2];
+                System.arraycopy(mRows, 0, rows, 0, mMerged);
+                mRows = rows;
+            }
+            mRows[mMerged++] = ((long) child << 32) | mNextPositions[child];
+
+            if (readNext(child, mNextPositions[child] + 1)) {
+                siftDown(0);
+            } else {
+                mHeap[0] = mHeap[--mHeapSize];
+                siftDown(0);
+            }
+        }
+    }
+
+    private void initHeap() {
+        int children = mCursors.length;
+        mHeap = new int[children];
+        mHeapSize = 0;
+        mNextPositions = new int[children];
+        if (mComparator != null) {
+            mNextRows = new Object[children];
+        } else {
+            mNextKeys = new long[children];
+            mKeyColumns = new int[children];
+        }
+        for (int child = 0; child < children; child++) {
+            IterableCursor<T> cursor = mCursors[child];
+            if (cursor == null) {
+                continue;
+            }
+            if (mKeyColumn != null) {
+                mKeyColumns[child] = cursor.getColumnIndexOrThrow(mKeyColumn);
+            }
+            if (readNext(child, 0)) {
+                mHeap[mHeapSize] = child;
+                siftUp(mHeapSize++);
+            }
+        }
+    }
+
+    /**
+     * Read the sort key of {@code child} at {@code position}.
+     *
+     * @return false if there is no such row
+     */
+    private boolean readNext(int child, int position) {
+        IterableCursor<T> cursor = mCursors[child];
+        if (position >= cursor.getCount() || !cursor.moveToPosition(position)) {
+            return false;
+        }
+        mNextPositions[child] = position;
+        if (mComparator != null) {
+            mNextRows[child] = cursor.peek();
+        } else {
+            mNextKeys[child] = cursor.getLong(mKeyColumns[child]);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isLess(int child, int other) {
+        int comparison;
+        if (mComparator != null) {
+            comparison = mComparator.compare((T) mNextRows[child], (T) mNextRows[other]);
+        } else {
+            long key = mNextKeys[child];
+            long otherKey = mNextKeys[other];
+            comparison = (key < otherKey) ? -1 : ((key == otherKey) ? 0 : 1);
+        }
+        return comparison < 0 || (comparison == 0 && child < other);
+    }
+
+    private void siftUp(int index) {
+        int child = mHeap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isLess(child, mHeap[parent])) {
+                break;
+            }
+            mHeap[index] = mHeap[parent];
+            index = parent;
+        }
+        mHeap[index] = child;
+    }
+
+    private void siftDown(int index) {
+        if (mHeapSize == 0) {
+            return;
+        }
+        int child = mHeap[index];
+        while (true) {
+            int smallest = 2 * index + 1;
+            if (smallest >= mHeapSize) {
+                break;
+            }
+            if (smallest + 1 < mHeapSize && isLess(mHeap[smallest + 1], mHeap[smallest])) {
+                smallest++;
+            }
+            if (!isLess(mHeap[smallest], child)) {
+                break;
+            }
+            mHeap[index] = mHeap[smallest];
+            index = smallest;
+        }
+        mHeap[index] = child;
+    }
+
+    private IterableCursor<T> getCurrent() {
+        checkPosition();
+        return mCurrent;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        for (IterableCursor<T> cursor : mCursors) {
+            if (cursor != null) {
+                return cursor.getColumnNames();
+            }
+        }
+        return new String[0];
+    }
+
+    @Override
+    public String getString(int column) {
+        return getCurrent().getString(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return getCurrent().getShort(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return getCurrent().getInt(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return getCurrent().getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return getCurrent().getFloat(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return getCurrent().getDouble(column);
+    }
+
+    @Override
+    public int getType(int column) {
+        return getCurrent().getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return getCurrent().isNull(column);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return getCurrent().getBlob(column);
+    }
+
+    @Override
+    public T peek() {
+        return getCurrent().peek();
+    }
+
+    @Override
+    public T peekInto(T reuse) {
+        return CursorUtils.peekInto(getCurrent(), reuse);
+    }
+
+    @Override
+    public T nextDocument() {
+        return nextDocumentHelper(this);
+    }
+
+    @Override
+    public T previousDocument() {
+        return previousDocumentHelper(this);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new CursorIterator<T>(this);
+    }
+
+    @Deprecated
+    @Override
+    public void deactivate() {
+        for (IterableCursor<T> cursor : mCursors) {
+            if (cursor != null) {
+                cursor.deactivate();
+            }
+        }
+        super.deactivate();
+    }
+
+    @Deprecated
+    @Override
+    public boolean requery() {
+        for (IterableCursor<T> cursor : mCursors) {
+            if (cursor != null && !cursor.requery()) {
+                return false;
+            }
+        }
+        reset();
+        return super.requery();
+    }
+
+    @Override
+    public void close() {
+        for (IterableCursor<T> cursor : mCursors) {
+            if (cursor != null) {
+                cursor.unregisterDataSetObserver(mObserver);
+                cursor.close();
+            }
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,71 @@
+package com.venmo.cursor;
+
+/**
+ * A set of {@code long}s in a single open-addressing (linear probing) table, which takes a
+ * fraction of the memory of a {@link java.util.HashSet} of {@link Long}s.
+ */
+final class LongHashSet {
+
+    /** Marks an empty slot; a key equal to it is tracked by {@link #mHasEmptyKey} instead */
+    private static final long EMPTY = 0;
+
+    private long[] mKeys;
+    private int mSize;
+    private boolean mHasEmptyKey;
+
+    LongHashSet() {
+        mKeys = new long[16];
+    }
+
+    /** @return true if {@code key} was not already in the set */
+    boolean add(long key) {
+        if (key == EMPTY) {
+            if (mHasEmptyKey) {
+                return false;
+            }
+            mHasEmptyKey = true;
+            return true;
+        }
+        if (!insert(mKeys, key)) {
+            return false;
+        }
+        // keep the table at most 3/4 full
+        if (++mSize > (mKeys.length >> 2) * 3) {
+            long[] keys = new long[mKeys.length * 2];
+            for (long existing : mKeys) {
+                if (existing != EMPTY) {
+                    insert(keys, existing);
+                }
+            }
+            mKeys = keys;
+        }
+        return true;
+    }
+
+    void clear() {
+        if (mSize > 0) {
+            mKeys = new long[16];
+            mSize = 0;
+        }
+        mHasEmptyKey = false;
+    }
+
+    private static boolean insert(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        return true;
+    }
+
+    /** Spreads sequential keys, such as row ids, across the table */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,92 @@
+package com.venmo.cursor;
+
+/**
+ * A map from {@code long} keys to non-negative {@code int} values in open-addressing (linear
+ * probing) tables, like {@link LongHashSet}.
+ */
+final class LongIntMap {
+
+    /** Marks an empty slot; a key equal to it is stored in {@link #mEmptyKeyValue} instead */
+    private static final long EMPTY = 0;
+    private static final int MISSING = -1;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private int mSize;
+    private int mEmptyKeyValue = MISSING;
+
+    LongIntMap(int expectedSize) {
+        int capacity = 16;
+        while ((capacity >> 2) * 3 < expectedSize) {
+            capacity <<= 1;
+        }
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+    }
+
+    /** @return the value of {@code key}, or -1 if there is none */
+    int get(long key) {
+        if (key == EMPTY) {
+            return mEmptyKeyValue;
+        }
+        int mask = mKeys.length - 1;
+        for (int i = hash(key) & mask; mKeys[i] != EMPTY; i = (i + 1) & mask) {
+            if (mKeys[i] == key) {
+                return mValues[i];
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Map {@code key} to {@code value}, unless it's already mapped.
+     *
+     * @return the existing value of {@code key}, or -1 if {@code value} was added
+     */
+    int putIfAbsent(long key, int value) {
+        if (key == EMPTY) {
+            int existing = mEmptyKeyValue;
+            if (existing == MISSING) {
+                mEmptyKeyValue = value;
+            }
+            return existing;
+        }
+        int existing = insert(mKeys, mValues, key, value);
+        if (existing != MISSING) {
+            return existing;
+        }
+        // keep the table at most 3/4 full
+        if (++mSize > (mKeys.length >> 2) * 3) {
+            long[] keys = new long[mKeys.length * 2];
+            int[] values = new int[keys.length];
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mKeys[i] != EMPTY) {
+                    insert(keys, values, mKeys[i], mValues[i]);
+                }
+            }
+            mKeys = keys;
+            mValues = values;
+        }
+        return MISSING;
+    }
+
+    private static int insert(long[] keys, int[] values, long key, int value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return MISSING;
+    }
+
+    /** Spreads sequential keys, such as row ids, across the table */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,48 @@
+package com.venmo.cursor;
+
+import android.database.CursorWrapper;
+
+import java.util.Iterator;
+
+import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
+import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
+
+/**
+ * A view of an {@link IterableCursor} whose rows are transformed by a {@link
+ * CursorUtils.Function} on every {@link #peek()}. Everything else, including the columns, is the
+ * underlying cursor's.
+ *
+ * @see CursorUtils#map(IterableCursor, CursorUtils.Function)
+ */
+class MappedIterableCursor<F, T> extends CursorWrapper implements IterableCursor<T> {
+
+    private final IterableCursor<F> mIterableCursor;
+    private final CursorUtils.Function<? super F, ? extends T> mFunction;
+
+    MappedIterableCursor(IterableCursor<F> cursor,
+            CursorUtils.Function<? super F, ? extends T> function) {
+        super(cursor);
+        mIterableCursor = cursor;
+        mFunction = function;
+    }
+
+    @Override
+    public T peek() {
+        return mFunction.apply(mIterableCursor.peek());
+    }
+
+    @Override
+    public T nextDocument() {
+        return nextDocumentHelper(this);
+    }
+
+    @Override
+    public T previousDocument() {
+        return previousDocumentHelper(this);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new CursorIterator<T>(this);
+    }
+}
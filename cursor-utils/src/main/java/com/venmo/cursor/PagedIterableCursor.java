@@ -0,0 +1,465 @@
+package com.venmo.cursor;
+
+import android.annotation.TargetApi;
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.CursorIndexOutOfBoundsException;
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Build.VERSION_CODES;
+import android.os.Bundle;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.venmo.cursor.CursorUtils.nextDocumentHelper;
+import static com.venmo.cursor.CursorUtils.previousDocumentHelper;
+
+/**
+ * An {@link IterableCursor} over a query which is too large to load at once. Rows are loaded in
+ * pages of {@code pageSize} by keyset pagination, i.e. {@link #queryPage(long, int)} should run
+ * something like {@code WHERE key > ? ORDER BY key LIMIT ?}. At most {@code maxPages} pages are
+ * kept open at a time, so memory stays bounded no matter how large the table is, and the first
+ * row is available as soon as the first page is.
+ * <p/>
+ * The last key of every page that has been loaded is remembered, so that moving back to an
+ * earlier position is a single query. Moving past the pages loaded so far loads every page in
+ * between.
+ * <p/>
+ * The number of rows is unknown until the last page is loaded. Until then, {@link #getCount()}
+ * defers to {@link #queryCount()}, which you should override with a {@code SELECT COUNT(*)}.
+ * <p/>
+ * The query's results should not change while this cursor is in use; call {@link #requery()}
+ * after they do.
+ * <p/>
+ * Like other cursors, a new one is on its first row, but the first page is only loaded once the
+ * row is read, since {@link #queryPage(long, int)} can't be called by this constructor.
+ */
+public abstract class PagedIterableCursor<T> implements ReusableRowCursor<T> {
+
+    private static final int UNKNOWN = -1;
+
+    private final String mKeyColumn;
+    private final int mPageSize;
+    private final int mMaxPages;
+
+    /** Open pages, least recently used first */
+    private final LinkedHashMap<Integer, IterableCursor<T>> mPages =
+            new LinkedHashMap<Integer, IterableCursor<T>>(16, 0.75f, true /* accessOrder */);
+    /** {@code mPageKeys[i]} is the {@code afterKey} of page {@code i} */
+    private long[] mPageKeys = new long[]{Long.MIN_VALUE};
+    private int mKnownPages = 1;
+    /** The number of rows, once the last page has been loaded */
+    private int mCount = UNKNOWN;
+    private int mQueriedCount = UNKNOWN;
+
+    private IterableCursor<T> mCurrent;
+    private int mCurrentPage = UNKNOWN;
+    private int mPosition = 0;
+    /** Whether the cursor is on its first row, which hasn't been loaded yet */
+    private boolean mFirstRowPending = true;
+    private boolean mClosed;
+
+    private final DataSetObservable mDataSetObservable = new DataSetObservable();
+
+    /**
+     * @param keyColumn a unique column which the query is ordered by
+     * @param pageSize the number of rows to query at once
+     * @param maxPages the maximum number of pages to keep open
+     */
+    public PagedIterableCursor(String keyColumn, int pageSize, int maxPages) {
+        if (keyColumn == null) {
+            throw new NullPointerException("Key column must be non-null");
+        }
+        if (pageSize <= 0 || maxPages <= 0) {
+            throw new IllegalArgumentException("pageSize and maxPages must be positive");
+        }
+        mKeyColumn = keyColumn;
+        mPageSize = pageSize;
+        mMaxPages = maxPages;
+    }
+
+    /**
+     * Query at most {@code limit} rows whose key is greater than {@code afterKey}, ordered by key.
+     *
+     * @param afterKey the last key of the previous page, or {@link Long#MIN_VALUE} for the first
+     * page
+     */
+    protected abstract IterableCursor<T> queryPage(long afterKey, int limit);
+
+    /**
+     * The total number of rows, which is used by {@link #getCount()} until the last page has been
+     * loaded. The default implementation loads every page, so override it with a cheaper query.
+     */
+    protected int queryCount() {
+        for (int page = mKnownPages - 1; mCount == UNKNOWN; page++) {
+            getPage(page);
+        }
+        return mCount;
+    }
+
+    /** @return the page, or null if it is past the last page */
+    private IterableCursor<T> getPage(int page) {
+        IterableCursor<T> cursor = mPages.get(page);
+        if (cursor != null) {
+            return cursor;
+        }
+        // every page before this one needs to be loaded to find its first key
+        for (int previous = mKnownPages - 1; previous < page; previous++) {
+            if (mCount != UNKNOWN) {
+                return null;
+            }
+            if (!mPages.containsKey(previous)) {
+                loadPage(previous);
+            }
+        }
+        if (page >= mKnownPages) {
+            return null;
+        }
+        return loadPage(page);
+    }
+
+    private IterableCursor<T> loadPage(int page) {
+        IterableCursor<T> cursor = queryPage(mPageKeys[page], mPageSize);
+        int rows = cursor.getCount();
+        if (rows < mPageSize) {
+            mCount = page * mPageSize + rows;
+        } else if (page == mKnownPages - 1) {
+            cursor.moveToLast();
+            if (mKnownPages == mPageKeys.length) {
+                long[] pageKeys = new long[mKnownPages * 2];
+                System.arraycopy(mPageKeys, 0, pageKeys, 0, mKnownPages);
+                mPageKeys = pageKeys;
+            }
+            mPageKeys[mKnownPages++] = cursor.getLong(cursor.getColumnIndexOrThrow(mKeyColumn));
+        }
+        mPages.put(page, cursor);
+        trimPages(page);
+        return cursor;
+    }
+
+    /**
+     * Close the least recently used pages above {@link #mMaxPages}, other than the current one
+     * and {@code keep}, which is about to be read.
+     */
+    private void trimPages(int keep) {
+        Iterator<Map.Entry<Integer, IterableCursor<T>>> pages = mPages.entrySet().iterator();
+        while (mPages.size() > mMaxPages && pages.hasNext()) {
+            Map.Entry<Integer, IterableCursor<T>> eldest = pages.next();
+            int page = eldest.getKey();
+            if (page != mCurrentPage && page != keep) {
+                eldest.getValue().close();
+                pages.remove();
+            }
+        }
+    }
+
+    private void closePages() {
+        for (IterableCursor<T> page : mPages.values()) {
+            page.close();
+        }
+        mPages.clear();
+        mCurrent = null;
+        mCurrentPage = UNKNOWN;
+    }
+
+    private void loadFirstRow() {
+        if (mFirstRowPending) {
+            moveToPosition(0);
+        }
+    }
+
+    private IterableCursor<T> getCurrent() {
+        loadFirstRow();
+        if (mCurrent == null) {
+            throw new CursorIndexOutOfBoundsException(mPosition, getCount());
+        }
+        return mCurrent;
+    }
+
+    /** A page to read column names from, even when not on a row */
+    private IterableCursor<T> getColumnSource() {
+        loadFirstRow();
+        return (mCurrent != null) ? mCurrent : getPage(0);
+    }
+
+    @Override
+    public T peek() {
+        return getCurrent().peek();
+    }
+
+    @Override
+    public T peekInto(T reuse) {
+        return CursorUtils.peekInto(getCurrent(), reuse);
+    }
+
+    @Override
+    public T nextDocument() {
+        return nextDocumentHelper(this);
+    }
+
+    @Override
+    public T previousDocument() {
+        return previousDocumentHelper(this);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new CursorIterator<T>(this);
+    }
+
+    @Override
+    public int getCount() {
+        if (mCount != UNKNOWN) {
+            return mCount;
+        }
+        if (mQueriedCount == UNKNOWN) {
+            mQueriedCount = queryCount();
+        }
+        return mQueriedCount;
+    }
+
+    @Override
+    public int getPosition() {
+        return mPosition;
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(mPosition + offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        mFirstRowPending = false;
+        if (position < 0) {
+            mPosition = -1;
+            mCurrent = null;
+            return false;
+        }
+        int page = position / mPageSize;
+        IterableCursor<T> cursor = getPage(page);
+        if (cursor == null || !cursor.moveToPosition(position % mPageSize)) {
+            // the last page has been loaded by now
+            mPosition = mCount;
+            mCurrent = null;
+            return false;
+        }
+        mPosition = position;
+        mCurrent = cursor;
+        if (mCurrentPage != page) {
+            mCurrentPage = page;
+            trimPages(page);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(getCount() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return move(1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return move(-1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        loadFirstRow();
+        return mCurrent != null && mPosition == 0;
+    }
+
+    @Override
+    public boolean isLast() {
+        loadFirstRow();
+        return mCurrent != null && mPosition == getCount() - 1;
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return mPosition < 0;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        loadFirstRow();
+        return mPosition >= 0 && mCurrent == null;
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        return getColumnSource().getColumnIndex(columnName);
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) throws IllegalArgumentException {
+        return getColumnSource().getColumnIndexOrThrow(columnName);
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return getColumnSource().getColumnName(columnIndex);
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return getColumnSource().getColumnNames();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return getColumnSource().getColumnCount();
+    }
+
+    @Override
+    public byte[] getBlob(int columnIndex) {
+        return getCurrent().getBlob(columnIndex);
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        return getCurrent().getString(columnIndex);
+    }
+
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+        getCurrent().copyStringToBuffer(columnIndex, buffer);
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        return getCurrent().getShort(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return getCurrent().getInt(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        return getCurrent().getLong(columnIndex);
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        return getCurrent().getFloat(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return getCurrent().getDouble(columnIndex);
+    }
+
+    @TargetApi(VERSION_CODES.HONEYCOMB)
+    @Override
+    public int getType(int columnIndex) {
+        return getCurrent().getType(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return getCurrent().isNull(columnIndex);
+    }
+
+    @Deprecated
+    @Override
+    public void deactivate() {
+        closePages();
+        mPosition = -1;
+        mDataSetObservable.notifyInvalidated();
+    }
+
+    /**
+     * Close every page and forget the page index and count, so that they are queried again. The
+     * cursor is moved before the first row.
+     */
+    @Deprecated
+    @Override
+    public boolean requery() {
+        if (mClosed) {
+            return false;
+        }
+        closePages();
+        mPageKeys = new long[]{Long.MIN_VALUE};
+        mKnownPages = 1;
+        mCount = UNKNOWN;
+        mQueriedCount = UNKNOWN;
+        mPosition = -1;
+        mFirstRowPending = false;
+        mDataSetObservable.notifyChanged();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closePages();
+        mFirstRowPending = false;
+        mClosed = true;
+        mDataSetObservable.notifyInvalidated();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+        // noop
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+        // noop
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        mDataSetObservable.registerObserver(observer);
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        mDataSetObservable.unregisterObserver(observer);
+    }
+
+    @Override
+    public void setNotificationUri(ContentResolver cr, Uri uri) {
+        // noop
+    }
+
+    @Override
+    public Uri getNotificationUri() {
+        return null;
+    }
+
+    @Override
+    public boolean getWantsAllOnMoveCalls() {
+        return false;
+    }
+
+    @Override
+    public Bundle getExtras() {
+        return Bundle.EMPTY;
+    }
+
+    @Override
+    public Bundle respond(Bundle extras) {
+        return Bundle.EMPTY;
+    }
+}
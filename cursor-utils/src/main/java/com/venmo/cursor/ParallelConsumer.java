@@ -0,0 +1,129 @@
+package com.venmo.cursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Translates every row of a query on several threads. Each worker opens its own cursor from a
+ * {@link CursorUtils.CursorFactory}, since cursors are not thread-safe, and then repeatedly claims
+ * the next chunk of positions and writes their rows into a shared array, so the result is in
+ * order no matter which worker translated which chunk.
+ *
+ * @see CursorUtils#consumeToArrayList(CursorUtils.CursorFactory, Executor, int)
+ */
+final class ParallelConsumer<T> {
+
+    /** Chunks per worker, so that a slow worker doesn't hold up the rest */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final CursorUtils.CursorFactory<T> mFactory;
+    private final int mCount;
+    private final int mChunkSize;
+    private final Object[] mRows;
+    private final AtomicInteger mNextChunk = new AtomicInteger();
+    private final AtomicReference<Throwable> mFailure = new AtomicReference<Throwable>();
+
+    private ParallelConsumer(CursorUtils.CursorFactory<T> factory, int count, int workers) {
+        mFactory = factory;
+        mCount = count;
+        mChunkSize = Math.max(1, (count + workers * CHUNKS_PER_WORKER - 1)
+                / (workers * CHUNKS_PER_WORKER));
+        mRows = new Object[count];
+    }
+
+    static <T> ArrayList<T> consume(CursorUtils.CursorFactory<T> factory, Executor executor,
+            int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        // the calling thread's cursor finds the count, and then works like any other
+        IterableCursor<T> cursor = factory.newCursor();
+        int count;
+        try {
+            count = cursor.getCount();
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+        int workers = Math.max(1, Math.min(parallelism, count));
+        ParallelConsumer<T> consumer = new ParallelConsumer<T>(factory, count, workers);
+        return consumer.run(cursor, executor, workers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArrayList<T> run(IterableCursor<T> cursor, Executor executor, int workers) {
+        final CountDownLatch done = new CountDownLatch(workers - 1);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    work(mFactory.newCursor());
+                } catch (Throwable t) {
+                    mFailure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RuntimeException e) {
+                // e.g. a RejectedExecutionException: the other workers pick up the slack
+                done.countDown();
+            }
+        }
+        try {
+            work(cursor);
+        } catch (Throwable t) {
+            mFailure.compareAndSet(null, t);
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            // the workers stop at their next chunk
+            mFailure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = mFailure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        CursorMetrics.rowsMaterialized(cursor, mCount);
+        return new ArrayList<T>((List<T>) (List<?>) Arrays.asList(mRows));
+    }
+
+    /** Translate chunks until there are none left, and close {@code cursor}. */
+    private void work(IterableCursor<T> cursor) {
+        try {
+            if (cursor.getCount() != mCount) {
+                throw new IllegalStateException("Cursors from the factory have different counts: "
+                        + cursor.getCount() + " and " + mCount);
+            }
+            while (mFailure.get() == null) {
+                int start = mNextChunk.getAndAdd(mChunkSize);
+                if (start >= mCount) {
+                    return;
+                }
+                int end = Math.min(start + mChunkSize, mCount);
+                cursor.moveToPosition(start);
+                for (int position = start; position < end; position++) {
+                    mRows[position] = CursorMetrics.peek(cursor);
+                    cursor.moveToNext();
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.venmo.cursor;
+
+/**
+ * An {@link IterableCursor} which can translate a row into an existing object, for
+ * allocation-free iteration with {@link CursorUtils#reusingRows(IterableCursor)}. Cursors which
+ * don't implement it are read with {@link #peek()} instead.
+ */
+public interface ReusableRowCursor<T> extends IterableCursor<T> {
+
+    /**
+     * Like {@link #peek()}, but may fill in and return {@code reuse} instead of allocating a new
+     * object. Implementations that cannot reuse objects return the same as {@link #peek()}, so
+     * always use the returned value. {@code reuse} may be null, in which case a new object is
+     * returned.
+     * <p/>
+     * The returned object may be modified by a later call, so copy it if it needs to be retained.
+     *
+     * @see CursorUtils#peekInto(IterableCursor, Object)
+     */
+    public T peekInto(T reuse);
+}
@@ -0,0 +1,206 @@
+package com.venmo.cursor;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Translates the rows surrounding the most recently requested position of an {@link
+ * IterableCursor} on an {@link Executor}, so that a later {@link #get(IterableCursor)} for a
+ * nearby row is usually a lookup instead of a {@link IterableCursor#peek()}.
+ * <p/>
+ * {@link android.database.Cursor}s are not thread-safe, so the prefetching thread never touches
+ * the requested cursor: it reads its own cursor over the same rows, opened on the executor by a
+ * {@link CursorUtils.CursorFactory}, e.g. by running the same query again. The prefetched rows are
+ * only locked to look them up or to publish a row, never while a row is read, so {@link
+ * #get(IterableCursor)} doesn't wait for the prefetching thread's I/O. {@link #get(IterableCursor)}
+ * and {@link #invalidate()} must be called on the thread which owns the requested cursor.
+ */
+public class RowPrefetcher<T> {
+
+    private final Object mLock = new Object();
+    private final Executor mExecutor;
+    private final CursorUtils.CursorFactory<T> mFactory;
+    private final int mDistance;
+
+    // all guarded by mLock
+    private final Map<Integer, T> mWindow = new HashMap<Integer, T>();
+    private IterableCursor<T> mCursor;
+    private int mCount;
+    private int mCenter;
+    private boolean mScheduled;
+    /** Incremented by {@link #invalidate()}, so that rows read before it are dropped */
+    private int mGeneration;
+    /** Rows translated since prefetching was last scheduled, for {@link CursorMetrics} */
+    private int mFilled;
+
+    // only used by the prefetching task, or under mLock while it isn't scheduled
+    private IterableCursor<T> mPrefetchCursor;
+    private int mPrefetchGeneration;
+
+    private final Runnable mPrefetchTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                while (prefetchNext()) {
+                    // the lock is only held between rows
+                }
+            } catch (RuntimeException e) {
+                synchronized (mLock) {
+                    closePrefetchCursor();
+                    finish();
+                }
+                throw e;
+            }
+        }
+    };
+
+    /**
+     * @param factory opens the cursor which the prefetching thread reads, over the same rows as
+     * the cursors passed to {@link #get(IterableCursor)}. It's opened again after {@link
+     * #invalidate()}.
+     * @param distance the number of rows to prefetch before and after the requested position
+     */
+    public RowPrefetcher(Executor executor, CursorUtils.CursorFactory<T> factory, int distance) {
+        if (distance <= 0) {
+            throw new IllegalArgumentException("distance must be positive");
+        }
+        mExecutor = executor;
+        mFactory = factory;
+        mDistance = distance;
+    }
+
+    /**
+     * Get the row at the current position of {@code cursor}, either from the prefetched rows or
+     * by {@link IterableCursor#peek()}, and start prefetching the rows around it.
+     */
+    public T get(IterableCursor<T> cursor) {
+        int position = cursor.getPosition();
+        int count = cursor.getCount();
+        T row;
+        boolean schedule;
+        synchronized (mLock) {
+            if (cursor != mCursor) {
+                invalidate();
+                mCursor = cursor;
+            }
+            mCenter = position;
+            mCount = count;
+            evictOutsideWindow();
+            row = mWindow.get(position);
+            schedule = !mScheduled;
+            if (schedule) {
+                mScheduled = true;
+                mFilled = 0;
+            }
+        }
+        if (row == null) {
+            row = CursorMetrics.peek(cursor);
+            synchronized (mLock) {
+                if (cursor == mCursor) {
+                    mWindow.put(position, row);
+                }
+            }
+        }
+        if (schedule) {
+            mExecutor.execute(mPrefetchTask);
+        }
+        return row;
+    }
+
+    /**
+     * Drop all prefetched rows and stop prefetching. Call this whenever the cursor or its contents
+     * change. The prefetching cursor is closed, and opened again by the next prefetch.
+     */
+    public void invalidate() {
+        synchronized (mLock) {
+            mWindow.clear();
+            mCursor = null;
+            mGeneration++;
+            if (!mScheduled) {
+                closePrefetchCursor();
+            }
+        }
+    }
+
+    /** @return false once there is nothing left to prefetch */
+    private boolean prefetchNext() {
+        int next;
+        int generation;
+        synchronized (mLock) {
+            if (mPrefetchGeneration != mGeneration) {
+                closePrefetchCursor();
+            }
+            next = nextMissingPosition();
+            if (next == -1) {
+                finish();
+                return false;
+            }
+            generation = mGeneration;
+        }
+        // only this task uses the prefetching cursor, so it's read without the lock
+        if (mPrefetchCursor == null) {
+            mPrefetchCursor = mFactory.newCursor();
+            mPrefetchGeneration = generation;
+        }
+        boolean moved = mPrefetchCursor.moveToPosition(next);
+        T row = moved ? CursorMetrics.peek(mPrefetchCursor) : null;
+        synchronized (mLock) {
+            if (!moved) {
+                finish();
+                return false;
+            }
+            if (generation == mGeneration) {
+                mWindow.put(next, row);
+                mFilled++;
+            }
+            return true;
+        }
+    }
+
+    private void finish() {
+        mScheduled = false;
+        if (mPrefetchGeneration != mGeneration) {
+            closePrefetchCursor();
+        }
+        CursorMetrics metrics = CursorMetrics.of(mCursor);
+        if (mFilled > 0 && mCursor != null && metrics != CursorMetrics.NONE) {
+            metrics.onWindowFilled(mCursor, mCenter, mFilled);
+        }
+    }
+
+    private void closePrefetchCursor() {
+        if (mPrefetchCursor != null) {
+            mPrefetchCursor.close();
+            mPrefetchCursor = null;
+        }
+    }
+
+    /** Closest positions first, alternating between after and before the center. */
+    private int nextMissingPosition() {
+        if (mCursor == null) {
+            return -1;
+        }
+        for (int offset = 1; offset <= mDistance; offset++) {
+            int after = mCenter + offset;
+            if (after < mCount && !mWindow.containsKey(after)) {
+                return after;
+            }
+            int before = mCenter - offset;
+            if (before >= 0 && !mWindow.containsKey(before)) {
+                return before;
+            }
+        }
+        return -1;
+    }
+
+    private void evictOutsideWindow() {
+        Iterator<Integer> positions = mWindow.keySet().iterator();
+        while (positions.hasNext()) {
+            if (Math.abs(positions.next() - mCenter) > mDistance) {
+                positions.remove();
+            }
+        }
+    }
+}
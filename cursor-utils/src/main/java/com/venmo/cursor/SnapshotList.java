@@ -0,0 +1,168 @@
+package com.venmo.cursor;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * A copy-on-write {@link List}. Every version of its contents is an immutable array: readers read
+ * whichever version is current without locking, and writers hold the list's lock while they copy
+ * the array, then publish the new version with a single volatile write. A bulk write such as
+ * {@link #addAll(Collection)} makes a single copy.
+ * <p/>
+ * {@link #iterator()} and {@link #listIterator()} read the version that was current when they
+ * were created, and don't support modification. {@link #subList(int, int)} is not thread-safe.
+ *
+ * @see ConcurrentCursorList
+ */
+final class SnapshotList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] mArray;
+
+    SnapshotList() {
+        mArray = EMPTY;
+    }
+
+    SnapshotList(Collection<? extends E> collection) {
+        mArray = collection.toArray();
+    }
+
+    /** @return an unmodifiable view of the current version */
+    @SuppressWarnings("unchecked")
+    List<E> snapshot() {
+        return Collections.unmodifiableList((List<E>) (List<?>) Arrays.asList(mArray));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int location) {
+        return (E) mArray[location];
+    }
+
+    @Override
+    public int size() {
+        return mArray.length;
+    }
+
+    @Override
+    public synchronized E set(int location, E object) {
+        Object[] array = mArray.clone();
+        E previous = get(location);
+        array[location] = object;
+        mArray = array;
+        return previous;
+    }
+
+    @Override
+    public synchronized void add(int location, E object) {
+        Object[] array = mArray;
+        if (location < 0 || location > array.length) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is "
+                    + array.length);
+        }
+        Object[] copy = new Object[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, location);
+        copy[location] = object;
+        System.arraycopy(array, location, copy, location + 1, array.length - location);
+        mArray = copy;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        synchronized (this) {
+            return addAll(mArray.length, collection);
+        }
+    }
+
+    @Override
+    public synchronized boolean addAll(int location, Collection<? extends E> collection) {
+        Object[] array = mArray;
+        if (location < 0 || location > array.length) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is "
+                    + array.length);
+        }
+        Object[] added = collection.toArray();
+        if (added.length == 0) {
+            return false;
+        }
+        Object[] copy = new Object[array.length + added.length];
+        System.arraycopy(array, 0, copy, 0, location);
+        System.arraycopy(added, 0, copy, location, added.length);
+        System.arraycopy(array, location, copy, location + added.length,
+                array.length - location);
+        mArray = copy;
+        return true;
+    }
+
+    @Override
+    public synchronized E remove(int location) {
+        Object[] array = mArray;
+        E removed = get(location);
+        Object[] copy = new Object[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, location);
+        System.arraycopy(array, location + 1, copy, location, array.length - location - 1);
+        mArray = copy;
+        return removed;
+    }
+
+    @Override
+    public synchronized boolean remove(Object object) {
+        int location = indexOf(object);
+        if (location == -1) {
+            return false;
+        }
+        remove(location);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        return removeIf(collection, true);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        return removeIf(collection, false);
+    }
+
+    /** Remove the elements for which {@code collection.contains()} is {@code contained}. */
+    private synchronized boolean removeIf(Collection<?> collection, boolean contained) {
+        Object[] array = mArray;
+        Object[] kept = new Object[array.length];
+        int size = 0;
+        for (Object element : array) {
+            if (collection.contains(element) != contained) {
+                kept[size++] = element;
+            }
+        }
+        if (size == array.length) {
+            return false;
+        }
+        Object[] copy = new Object[size];
+        System.arraycopy(kept, 0, copy, 0, size);
+        mArray = copy;
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        mArray = EMPTY;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int location) {
+        return snapshot().listIterator(location);
+    }
+}
@@ -0,0 +1,130 @@
+package com.venmo.cursor;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link CursorList} of an append-only query, such as a log of messages, which only reads the
+ * rows that were added since it was last {@link #refresh() refreshed}. It remembers the greatest
+ * key it has read (e.g. the {@code _id} or {@code rowid}), and asks its {@link TailQuery} for the
+ * rows after it, which are appended without moving any existing row. Observers are notified of
+ * the appended range in one batch, and an {@link IterableMergeCursor} containing the list picks
+ * up the new rows as well.
+ * <p/>
+ * Rows which are updated or deleted after they were read aren't noticed; use a new query for
+ * those.
+ */
+public class TailCursorList<E> extends CursorList<E> {
+
+    /** Queries the rows of an append-only table in ascending key order. */
+    public interface TailQuery<E> {
+        /**
+         * @return the rows whose key is greater than {@code afterKey}, in ascending key order, e.g.
+         * {@code WHERE _id > ? ORDER BY _id}. {@code afterKey} is {@link Long#MIN_VALUE} for the
+         * first query.
+         */
+        IterableCursor<E> queryAfter(long afterKey);
+    }
+
+    private final String mKeyColumn;
+    private final TailQuery<E> mQuery;
+    private long mLastKey = Long.MIN_VALUE;
+
+    private ContentResolver mResolver;
+    private ContentObserver mContentObserver;
+
+    /**
+     * An empty list, which reads all rows on the first {@link #refresh()}.
+     *
+     * @param keyColumn the integer column by which rows are ordered
+     */
+    public TailCursorList(String keyColumn, TailQuery<E> query) {
+        mKeyColumn = keyColumn;
+        mQuery = query;
+    }
+
+    /**
+     * Append the rows which were added since the last refresh, and notify observers of them.
+     *
+     * @return the number of rows appended
+     */
+    public int refresh() {
+        if (isClosed()) {
+            return 0;
+        }
+        IterableCursor<E> cursor = mQuery.queryAfter(mLastKey);
+        List<E> rows;
+        long lastKey = mLastKey;
+        try {
+            int column = cursor.getColumnIndexOrThrow(mKeyColumn);
+            rows = new ArrayList<E>(cursor.getCount());
+            cursor.moveToPosition(-1);
+            while (cursor.moveToNext()) {
+                rows.add(CursorMetrics.peek(cursor));
+                lastKey = Math.max(lastKey, cursor.getLong(column));
+            }
+            CursorMetrics.rowsMaterialized(cursor, rows.size());
+        } finally {
+            cursor.close();
+        }
+        addAll(rows);
+        // only once the rows are in the list, so that a failed refresh reads them again
+        mLastKey = lastKey;
+        return rows.size();
+    }
+
+    /** The greatest key read so far, or {@link Long#MIN_VALUE} if no rows have been read. */
+    public long getLastKey() {
+        return mLastKey;
+    }
+
+    /**
+     * {@link #refresh()} whenever {@code uri} changes, on the thread calling this method, which
+     * must have a {@link android.os.Looper}. Stops when the list is closed.
+     */
+    public void refreshOnChange(ContentResolver resolver, Uri uri) {
+        stopRefreshingOnChange();
+        mResolver = resolver;
+        mContentObserver = new ContentObserver(new Handler()) {
+            @Override
+            public void onChange(boolean selfChange) {
+                refresh();
+            }
+        };
+        resolver.registerContentObserver(uri, true, mContentObserver);
+    }
+
+    public void stopRefreshingOnChange() {
+        if (mContentObserver != null) {
+            mResolver.unregisterContentObserver(mContentObserver);
+            mContentObserver = null;
+            mResolver = null;
+        }
+    }
+
+    /**
+     * Same as {@link #refresh()}, which reads only the new rows rather than the whole query.
+     *
+     * @return false if the list is closed
+     */
+    @Deprecated
+    @Override
+    public boolean requery() {
+        if (isClosed()) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        stopRefreshingOnChange();
+        super.close();
+    }
+}
@@ -6,10 +6,17 @@ import android.support.v4.widget.CursorAdapter;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.venmo.cursor.CursorMetrics;
+import com.venmo.cursor.CursorUtils;
 import com.venmo.cursor.IterableCursor;
+import com.venmo.cursor.RowPrefetcher;
+
+import java.util.concurrent.Executor;
 
 public abstract class IterableCursorAdapter<T> extends CursorAdapter {
 
+    private RowPrefetcher<T> mPrefetcher;
+
     protected IterableCursorAdapter(Context context, IterableCursor<T> c, boolean autoRequery) {
         super(context, c, autoRequery);
     }
@@ -18,16 +25,29 @@ public abstract class IterableCursorAdapter<T> extends CursorAdapter {
         super(context, c, flags);
     }
 
+    /**
+     * Translate the {@code distance} rows before and after each bound row on {@code executor}, so
+     * that binding a nearby row is usually a lookup rather than a {@link IterableCursor#peek()}.
+     * The rows are read from a separate cursor opened by {@code factory}, e.g. by running the
+     * adapter's query again, so the adapter's own cursor is never touched off the UI thread.
+     *
+     * @see RowPrefetcher
+     */
+    public void enablePrefetching(Executor executor, CursorUtils.CursorFactory<T> factory,
+            int distance) {
+        mPrefetcher = new RowPrefetcher<T>(executor, factory, distance);
+    }
+
     @Override
     public final View newView(Context context, Cursor cursor, ViewGroup parent) {
-        return newView(context, getCursor().peek(), parent);
+        return newView(context, peek(), parent);
     }
 
     public abstract View newView(Context context, T t, ViewGroup parent);
 
     @Override
     public final void bindView(View view, Context context, Cursor cursor) {
-        T t = getCursor().peek();
+        T t = peek();
         bindView(view, context, t);
     }
 
@@ -42,7 +62,19 @@ public abstract class IterableCursorAdapter<T> extends CursorAdapter {
     @Override
     public Cursor swapCursor(Cursor newCursor) {
         enforceIterableCursor(newCursor);
-        return super.swapCursor(newCursor);
+        return super.swapCursor(newCursor); // invalidates the prefetcher via notify*()
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        invalidatePrefetcher();
+        super.notifyDataSetChanged();
+    }
+
+    @Override
+    public void notifyDataSetInvalidated() {
+        invalidatePrefetcher();
+        super.notifyDataSetInvalidated();
     }
 
     @Override
@@ -53,8 +85,21 @@ public abstract class IterableCursorAdapter<T> extends CursorAdapter {
     @Override
     public T getItem(int position) {
         Object superResult = super.getItem(position); // checks validity and moves the cursor
-        @SuppressWarnings("unchecked") IterableCursor<T> cursor = ((IterableCursor<T>) superResult);
-        return cursor.peek();
+        if (superResult == null) {
+            return null;
+        }
+        return peek();
+    }
+
+    private T peek() {
+        IterableCursor<T> cursor = getCursor();
+        return (mPrefetcher == null) ? CursorMetrics.peek(cursor) : mPrefetcher.get(cursor);
+    }
+
+    private void invalidatePrefetcher() {
+        if (mPrefetcher != null) {
+            mPrefetcher.invalidate();
+        }
     }
 
     private IterableCursor<T> enforceIterableCursor(Cursor cursor) {
@@ -0,0 +1,232 @@
+package com.venmo.cursor.support;
+
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.support.v7.widget.RecyclerView;
+
+import com.venmo.cursor.CursorDiff;
+import com.venmo.cursor.CursorMetrics;
+import com.venmo.cursor.IterableCursor;
+
+import java.util.Arrays;
+
+/**
+ * A {@link RecyclerView.Adapter} over the rows of an {@link IterableCursor}. Each bound row is
+ * translated once, even though RecyclerView asks for its view type before binding it, and view
+ * types are cached per position until the cursor is swapped or notifies its {@link
+ * DataSetObserver}s of a change, e.g. a write to a {@link com.venmo.cursor.CursorList}. Notify
+ * RecyclerView of such changes as usual, after making them.
+ * <p/>
+ * Given an integer id column (e.g. {@code _id}), the adapter has stable ids, read straight from
+ * the column, and {@link #swapCursor(IterableCursor)} notifies RecyclerView of the inserted,
+ * removed and moved rows rather than of a whole new data set, so that it can animate them and
+ * only rebind what it has to.
+ */
+public abstract class IterableCursorRecyclerAdapter<T, VH extends RecyclerView.ViewHolder>
+        extends RecyclerView.Adapter<VH> {
+
+    private static final int UNRESOLVED = Integer.MIN_VALUE;
+
+    private final String mIdColumn;
+    private IterableCursor<T> mCursor;
+    /** The ids of the rows of {@link #mCursor}, or null without an id column */
+    private long[] mIds;
+    private int[] mViewTypes;
+    /** False once the cursor's rows change, until the ids and view types are read again */
+    private boolean mCachesValid;
+
+    // the most recently translated row
+    private int mRowPosition = -1;
+    private T mRow;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            invalidateCaches();
+        }
+
+        @Override
+        public void onInvalidated() {
+            // closed or deactivated: the rows are gone, but the ids still describe what's shown
+            mRowPosition = -1;
+            mRow = null;
+        }
+    };
+
+    private final CursorDiff.Callback mUpdates = new CursorDiff.Callback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(position, count);
+        }
+    };
+
+    /**
+     * An adapter without stable ids, which notifies RecyclerView of a whole new data set whenever
+     * its cursor is swapped.
+     */
+    protected IterableCursorRecyclerAdapter(IterableCursor<T> cursor) {
+        this(cursor, null);
+    }
+
+    /**
+     * @param idColumn an integer column which uniquely identifies each row, used for stable ids
+     * and to find what changed when the cursor is swapped
+     */
+    protected IterableCursorRecyclerAdapter(IterableCursor<T> cursor, String idColumn) {
+        mIdColumn = idColumn;
+        setHasStableIds(idColumn != null);
+        setCursor(cursor);
+    }
+
+    public abstract void onBindViewHolder(VH holder, T t);
+
+    /** The view type of {@code t}, which is cached for its position. The default is 0. */
+    public int getItemViewType(T t) {
+        return 0;
+    }
+
+    @Override
+    public final void onBindViewHolder(VH holder, int position) {
+        onBindViewHolder(holder, getItem(position));
+    }
+
+    @Override
+    public final int getItemViewType(int position) {
+        validateCaches();
+        int viewType = mViewTypes[position];
+        if (viewType == UNRESOLVED) {
+            viewType = getItemViewType(getItem(position));
+            mViewTypes[position] = viewType;
+        }
+        return viewType;
+    }
+
+    @Override
+    public int getItemCount() {
+        return (mCursor == null) ? 0 : mCursor.getCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (mIdColumn == null) {
+            return RecyclerView.NO_ID;
+        }
+        validateCaches();
+        return (mIds == null) ? RecyclerView.NO_ID : mIds[position];
+    }
+
+    public IterableCursor<T> getCursor() {
+        return mCursor;
+    }
+
+    /** The row at {@code position}, which is only translated again after another row is. */
+    public T getItem(int position) {
+        if (position != mRowPosition) {
+            mCursor.moveToPosition(position);
+            mRow = CursorMetrics.peek(mCursor);
+            mRowPosition = position;
+        }
+        return mRow;
+    }
+
+    /**
+     * Replace the cursor, returning the old one without closing it. With an id column, RecyclerView
+     * is notified of the rows which were inserted, removed and moved according to their ids, and
+     * every other row is rebound in case its contents changed; otherwise, of a new data set.
+     *
+     * @see #swapCursor(IterableCursor, CursorDiff)
+     */
+    public IterableCursor<T> swapCursor(IterableCursor<T> newCursor) {
+        if (mCursor != null && !mCursor.isClosed()) {
+            validateCaches();
+        }
+        long[] oldIds = mCachesValid ? mIds : null;
+        IterableCursor<T> oldCursor = setCursor(newCursor);
+        if (oldIds != null && mIds != null) {
+            CursorDiff.ofKeys(oldIds, mIds).dispatchUpdatesTo(mUpdates);
+        } else {
+            notifyDataSetChanged();
+        }
+        return oldCursor;
+    }
+
+    /**
+     * Replace the cursor, returning the old one without closing it, and notify RecyclerView of
+     * {@code diff}, which turns the old cursor's rows into {@code newCursor}'s. Unlike {@link
+     * #swapCursor(IterableCursor)}, rows whose contents are the same aren't rebound.
+     *
+     * @see com.venmo.cursor.CursorUtils#diff(IterableCursor, IterableCursor, String,
+     * com.venmo.cursor.CursorUtils.Equivalence)
+     */
+    public IterableCursor<T> swapCursor(IterableCursor<T> newCursor, CursorDiff diff) {
+        IterableCursor<T> oldCursor = setCursor(newCursor);
+        diff.dispatchUpdatesTo(mUpdates);
+        return oldCursor;
+    }
+
+    /** Like {@link #swapCursor(IterableCursor)}, but closes the old cursor. */
+    public void changeCursor(IterableCursor<T> newCursor) {
+        Cursor oldCursor = swapCursor(newCursor);
+        if (oldCursor != null && oldCursor != newCursor) {
+            oldCursor.close();
+        }
+    }
+
+    private IterableCursor<T> setCursor(IterableCursor<T> cursor) {
+        IterableCursor<T> oldCursor = mCursor;
+        if (oldCursor != null) {
+            oldCursor.unregisterDataSetObserver(mObserver);
+        }
+        mCursor = cursor;
+        if (cursor != null) {
+            cursor.registerDataSetObserver(mObserver);
+        }
+        invalidateCaches();
+        validateCaches();
+        return oldCursor;
+    }
+
+    private void invalidateCaches() {
+        mRowPosition = -1;
+        mRow = null;
+        mCachesValid = false;
+    }
+
+    /** Size the view types and read the ids for the cursor's current rows, if they changed. */
+    private void validateCaches() {
+        if (mCachesValid) {
+            return;
+        }
+        int count = getItemCount();
+        mViewTypes = new int[count];
+        Arrays.fill(mViewTypes, UNRESOLVED);
+        mIds = (mIdColumn == null || mCursor == null) ? null : readIds(mCursor, count);
+        mCachesValid = true;
+    }
+
+    private long[] readIds(IterableCursor<T> cursor, int count) {
+        int column = cursor.getColumnIndexOrThrow(mIdColumn);
+        int position = cursor.getPosition();
+        long[] ids = new long[count];
+        for (int i = 0; i < count && cursor.moveToPosition(i); i++) {
+            ids[i] = cursor.getLong(column);
+        }
+        cursor.moveToPosition(position);
+        return ids;
+    }
+}